@@ -1,14 +1,164 @@
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+// ===== FIXED-POINT MONEY (long cents, no double arithmetic) =====
+final class Money implements Comparable<Money> {
+    public static final Money ZERO = new Money(0);
+    
+    private final long cents;
+    
+    private Money(long cents) {
+        this.cents = cents;
+    }
+    
+    public static Money ofCents(long cents) {
+        return cents == 0 ? ZERO : new Money(cents);
+    }
+    
+    // For values coming from double-based APIs; rounds half-up to the nearest cent
+    public static Money ofDouble(double amount) {
+        double scaled = amount * 100.0;
+        if (Double.isNaN(scaled) || scaled >= 9.2e18 || scaled <= -9.2e18) {
+            throw new ArithmeticException("Amount out of range: " + amount);
+        }
+        return ofCents(Math.round(scaled));
+    }
+    
+    public long toCents() {
+        return cents;
+    }
+    
+    public double toDouble() {
+        return cents / 100.0;
+    }
+    
+    // Overflow throws ArithmeticException instead of silently wrapping
+    public Money add(Money other) {
+        return ofCents(Math.addExact(cents, other.cents));
+    }
+    
+    public Money subtract(Money other) {
+        return ofCents(Math.subtractExact(cents, other.cents));
+    }
+    
+    // Scaled multiply, rounded half-up: e.g. multiply(3, 4) is three quarters of this amount
+    public Money multiply(long numerator, long denominator) {
+        return ofCents(scale(cents, numerator, denominator));
+    }
+    
+    // Interest and fees are expressed in basis points (1 bp = 0.01%)
+    public Money percent(long basisPoints) {
+        return multiply(basisPoints, 10_000);
+    }
+    
+    public boolean isPositive() {
+        return cents > 0;
+    }
+    
+    public boolean isNegative() {
+        return cents < 0;
+    }
+    
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(cents, other.cents);
+    }
+    
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof Money && ((Money) other).cents == cents;
+    }
+    
+    @Override
+    public int hashCode() {
+        return Long.hashCode(cents);
+    }
+    
+    // Formats as "1234.56" (no currency sign, matching how amounts are printed after "$")
+    @Override
+    public String toString() {
+        return appendCents(new StringBuilder(24), cents).toString();
+    }
+    
+    // Appends cents as a decimal amount using integer arithmetic only
+    public static StringBuilder appendCents(StringBuilder out, long cents) {
+        if (cents < 0) {
+            out.append('-');
+        }
+        long units = Math.abs(cents / 100);
+        int fraction = (int) Math.abs(cents % 100);
+        return out.append(units).append('.').append((char) ('0' + fraction / 10)).append((char) ('0' + fraction % 10));
+    }
+    
+    // ---- Bulk primitive API: operates on raw cent arrays without creating Money objects ----
+    
+    // Adds interest (in basis points) to balances[from, to) in place
+    public static void accrueInterest(long[] balancesCents, int from, int to, long basisPoints) {
+        for (int i = from; i < to; i++) {
+            long balance = balancesCents[i];
+            balancesCents[i] = Math.addExact(balance, scale(balance, basisPoints, 10_000));
+        }
+    }
+    
+    public static void accrueInterest(long[] balancesCents, long basisPoints) {
+        accrueInterest(balancesCents, 0, balancesCents.length, basisPoints);
+    }
+    
+    public static long sum(long[] amountsCents) {
+        long total = 0;
+        for (long amount : amountsCents) {
+            total = Math.addExact(total, amount);
+        }
+        return total;
+    }
+    
+    private static long scale(long value, long numerator, long denominator) {
+        if (denominator <= 0) {
+            throw new IllegalArgumentException("Denominator must be positive: " + denominator);
+        }
+        long product = Math.multiplyExact(value, numerator);
+        long quotient = product / denominator;
+        long remainder = product % denominator;
+        if (Math.abs(remainder) >= denominator - Math.abs(remainder)) { // Half-up, without overflowing
+            quotient += product < 0 ? -1 : 1;
+        }
+        return quotient;
+    }
+}
+
 // Encapsulation Example
 class BankAccount {
     private String accountNumber;
-    private double balance;
+    private Money balance;
     private String ownerName;
+    private final AccountEventSink events;
     
     // Constructor
     public BankAccount(String accountNumber, String ownerName, double initialBalance) {
+        this(accountNumber, ownerName, finiteOrZero(initialBalance), AccountEventSink.shared());
+    }
+    
+    public BankAccount(String accountNumber, String ownerName, Money initialBalance, AccountEventSink events) {
         this.accountNumber = accountNumber;
         this.ownerName = ownerName;
-        this.balance = initialBalance > 0 ? initialBalance : 0;
+        this.balance = initialBalance.isPositive() ? initialBalance : Money.ZERO;
+        this.events = events;
     }
     
     // Public getters (accessors)
@@ -17,6 +167,11 @@ class BankAccount {
     }
     
     public double getBalance() {
+        return balance.toDouble();
+    }
+    
+    // Exact balance, for callers that need cents rather than a double
+    public Money getBalanceMoney() {
         return balance;
     }
     
@@ -33,24 +188,207 @@ class BankAccount {
     
     // Public methods to interact with private data
     public void deposit(double amount) {
-        if (amount > 0) {
-            balance += amount;
-            System.out.println("Deposited: $" + amount + ", New balance: $" + balance);
+        deposit(finiteOrZero(amount));
+    }
+    
+    public void deposit(Money amount) {
+        if (amount.isPositive()) {
+            balance = balance.add(amount);
+            events.publish(AccountEventSink.DEPOSITED, amount.toCents(), balance.toCents());
         } else {
-            System.out.println("Invalid deposit amount");
+            events.publish(AccountEventSink.INVALID_DEPOSIT, amount.toCents(), balance.toCents());
         }
     }
     
     public void withdraw(double amount) {
-        if (amount > 0 && amount <= balance) {
-            balance -= amount;
-            System.out.println("Withdrawn: $" + amount + ", New balance: $" + balance);
+        withdraw(finiteOrZero(amount));
+    }
+    
+    // NaN and infinities become zero, so they take the usual "invalid amount" path instead of throwing
+    private static Money finiteOrZero(double amount) {
+        return Double.isFinite(amount) ? Money.ofDouble(amount) : Money.ZERO;
+    }
+    
+    public void withdraw(Money amount) {
+        if (amount.isPositive() && amount.compareTo(balance) <= 0) {
+            balance = balance.subtract(amount);
+            events.publish(AccountEventSink.WITHDRAWN, amount.toCents(), balance.toCents());
         } else {
-            System.out.println("Insufficient funds or invalid amount");
+            events.publish(AccountEventSink.WITHDRAW_REJECTED, amount.toCents(), balance.toCents());
         }
     }
 }
 
+// ===== ASYNCHRONOUS ACCOUNT EVENT SINK =====
+// Producers copy primitives into preallocated ring-buffer slots instead of building Strings;
+// a single background thread formats the events and writes them to the output in batches.
+class AccountEventSink {
+    public enum FullPolicy { DROP, BLOCK }
+    
+    static final int DEPOSITED = 0;
+    static final int INVALID_DEPOSIT = 1;
+    static final int WITHDRAWN = 2;
+    static final int WITHDRAW_REJECTED = 3;
+    
+    private static final int MAX_BATCH = 256;
+    private static volatile AccountEventSink shared;
+    
+    // Slot storage, one entry per slot - nothing is allocated per event
+    private final int[] types;
+    private final long[] amounts;  // Cents
+    private final long[] balances; // Cents
+    private final AtomicLongArray published; // Sequence stored in a slot once it is readable
+    private final int mask;
+    
+    private final AtomicLong claimed = new AtomicLong();  // Next sequence handed to a producer
+    private volatile long consumed;                       // Next sequence the consumer will read
+    private final AtomicLong dropped = new AtomicLong();
+    private final FullPolicy policy;
+    private final PrintStream out;
+    private final StringBuilder text = new StringBuilder(MAX_BATCH * 64); // Consumer-only
+    private final Thread consumer;
+    private volatile boolean running = true;
+    private volatile boolean consumerParked; // Producers unpark the consumer only while this is set
+    
+    public AccountEventSink(PrintStream out, int capacity, FullPolicy policy) {
+        int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1; // Round up to a power of two
+        this.types = new int[size];
+        this.amounts = new long[size];
+        this.balances = new long[size];
+        this.published = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            published.set(i, -1);
+        }
+        this.mask = size - 1;
+        this.out = out;
+        this.policy = policy;
+        this.consumer = new Thread(this::consumeLoop, "Account-Event-Sink");
+        consumer.setDaemon(true);
+        consumer.start();
+    }
+    
+    // Console sink used by BankAccount when no other sink is given
+    public static AccountEventSink shared() {
+        AccountEventSink sink = shared;
+        if (sink == null) {
+            synchronized (AccountEventSink.class) {
+                sink = shared;
+                if (sink == null) {
+                    sink = new AccountEventSink(System.out, 4096, FullPolicy.BLOCK);
+                    shared = sink;
+                }
+            }
+        }
+        return sink;
+    }
+    
+    // Returns false if the event was dropped because the ring was full
+    public boolean publish(int type, long amountCents, long balanceCents) {
+        long seq;
+        while (true) {
+            seq = claimed.get();
+            if (seq - consumed > mask) {
+                if (policy == FullPolicy.DROP) {
+                    dropped.incrementAndGet();
+                    return false;
+                }
+                LockSupport.parkNanos(1_000); // BLOCK: wait for the consumer to free a slot
+                continue;
+            }
+            if (claimed.compareAndSet(seq, seq + 1)) {
+                break;
+            }
+        }
+        int slot = (int) (seq & mask);
+        types[slot] = type;
+        amounts[slot] = amountCents;
+        balances[slot] = balanceCents;
+        published.set(slot, seq); // Volatile write makes the slot fields visible to the consumer
+        if (consumerParked) {
+            LockSupport.unpark(consumer);
+        }
+        return true;
+    }
+    
+    // Waits until everything published so far has been written
+    public void flush() {
+        long target = claimed.get();
+        while (consumed < target && consumer.isAlive()) {
+            LockSupport.parkNanos(100_000);
+        }
+        out.flush();
+    }
+    
+    public long getDropped() {
+        return dropped.get();
+    }
+    
+    public void close() {
+        flush();
+        running = false;
+        LockSupport.unpark(consumer);
+        try {
+            consumer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    private void consumeLoop() {
+        long next = 0;
+        int idleRounds = 0;
+        while (running || next < claimed.get()) {
+            int count = 0;
+            while (count < MAX_BATCH && published.get((int) (next & mask)) == next) {
+                int slot = (int) (next & mask);
+                format(types[slot], amounts[slot], balances[slot]);
+                next++;
+                count++;
+            }
+            if (count == 0) {
+                if (++idleRounds < 100) {
+                    Thread.onSpinWait();
+                    continue;
+                }
+                // Announce the park, then re-check: a producer either sees the flag or we see its slot
+                consumerParked = true;
+                if (running && published.get((int) (next & mask)) != next) {
+                    LockSupport.park(this);
+                }
+                consumerParked = false;
+                continue;
+            }
+            idleRounds = 0;
+            out.append(text);
+            text.setLength(0);
+            consumed = next; // Frees the batch's slots for producers
+        }
+        out.flush();
+    }
+    
+    private void format(int type, long amountCents, long balanceCents) {
+        switch (type) {
+            case DEPOSITED:
+                Money.appendCents(text.append("Deposited: $"), amountCents).append(", New balance: $");
+                Money.appendCents(text, balanceCents);
+                break;
+            case INVALID_DEPOSIT:
+                text.append("Invalid deposit amount");
+                break;
+            case WITHDRAWN:
+                Money.appendCents(text.append("Withdrawn: $"), amountCents).append(", New balance: $");
+                Money.appendCents(text, balanceCents);
+                break;
+            case WITHDRAW_REJECTED:
+                text.append("Insufficient funds or invalid amount");
+                break;
+            default:
+                text.append("Unknown event ").append(type);
+        }
+        text.append(System.lineSeparator());
+    }
+}
+
 // Abstract Class Example
 abstract class Shape {
     protected String color;
@@ -59,6 +397,10 @@ abstract class Shape {
         this.color = color;
     }
     
+    public String getColor() {
+        return color;
+    }
+    
     // Abstract methods
     public abstract double calculateArea();
     public abstract double calculatePerimeter();
@@ -79,6 +421,10 @@ class Circle extends Shape {
         this.radius = radius;
     }
     
+    public double getRadius() {
+        return radius;
+    }
+    
     @Override
     public double calculateArea() {
         return Math.PI * radius * radius;
@@ -100,6 +446,14 @@ class Rectangle extends Shape {
         this.width = width;
     }
     
+    public double getLength() {
+        return length;
+    }
+    
+    public double getWidth() {
+        return width;
+    }
+    
     @Override
     public double calculateArea() {
         return length * width;
@@ -111,6 +465,788 @@ class Rectangle extends Shape {
     }
 }
 
+// ===== STRUCTURE-OF-ARRAYS SHAPE BATCH =====
+// Stores many shapes as columns instead of Circle/Rectangle objects. Unused dimensions are zero
+// (a circle has no length/width, a rectangle no radius), so one formula covers both kinds and
+// the area/perimeter loops have no virtual calls and no branches.
+class ShapeBatch {
+    static final byte CIRCLE = 0;
+    static final byte RECTANGLE = 1;
+    
+    private byte[] kinds;
+    private String[] colors;
+    private double[] radii;
+    private double[] lengths;
+    private double[] widths;
+    private double[] areas;
+    private double[] perimeters;
+    private int size;
+    
+    public ShapeBatch(int initialCapacity) {
+        int capacity = Math.max(initialCapacity, 8);
+        kinds = new byte[capacity];
+        colors = new String[capacity];
+        radii = new double[capacity];
+        lengths = new double[capacity];
+        widths = new double[capacity];
+    }
+    
+    public int addCircle(String color, double radius) {
+        int index = append(CIRCLE, color);
+        radii[index] = radius;
+        return index;
+    }
+    
+    public int addRectangle(String color, double length, double width) {
+        int index = append(RECTANGLE, color);
+        lengths[index] = length;
+        widths[index] = width;
+        return index;
+    }
+    
+    private int append(byte kind, String color) {
+        if (size == kinds.length) {
+            int capacity = size * 2;
+            kinds = java.util.Arrays.copyOf(kinds, capacity);
+            colors = java.util.Arrays.copyOf(colors, capacity);
+            radii = java.util.Arrays.copyOf(radii, capacity);
+            lengths = java.util.Arrays.copyOf(lengths, capacity);
+            widths = java.util.Arrays.copyOf(widths, capacity);
+        }
+        kinds[size] = kind;
+        colors[size] = color;
+        areas = null; // Results are stale
+        return size++;
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    // Computes area and perimeter for every shape in the batch
+    public void compute() {
+        if (areas == null || areas.length < size) {
+            areas = new double[kinds.length];
+            perimeters = new double[kinds.length];
+        }
+        double[] r = radii;
+        double[] l = lengths;
+        double[] w = widths;
+        double[] area = areas;
+        double[] perimeter = perimeters;
+        for (int i = 0; i < size; i++) {
+            area[i] = Math.PI * r[i] * r[i] + l[i] * w[i];
+        }
+        for (int i = 0; i < size; i++) {
+            perimeter[i] = 2 * Math.PI * r[i] + 2 * (l[i] + w[i]);
+        }
+    }
+    
+    public double getArea(int index) {
+        ensureComputed();
+        return areas[index];
+    }
+    
+    public double getPerimeter(int index) {
+        ensureComputed();
+        return perimeters[index];
+    }
+    
+    public double totalArea() {
+        ensureComputed();
+        double total = 0;
+        for (int i = 0; i < size; i++) {
+            total += areas[i];
+        }
+        return total;
+    }
+    
+    // Same output as Shape.displayInfo(), read from the precomputed columns
+    public void displayInfo(int index) {
+        ensureComputed();
+        System.out.println((kinds[index] == CIRCLE ? "Circle" : "Rectangle") + " #" + index + ":");
+        System.out.println("Color: " + colors[index]);
+        System.out.println("Area: " + areas[index]);
+        System.out.println("Perimeter: " + perimeters[index]);
+    }
+    
+    private void ensureComputed() {
+        if (areas == null) {
+            compute();
+        }
+    }
+    
+    // Object-per-shape (virtual calls) vs columnar batch, same shapes in both
+    public static void runBenchmark() {
+        System.out.println("\n=== SHAPE BATCH BENCHMARK ===");
+        int count = 2_000_000;
+        Shape[] shapes = new Shape[count];
+        ShapeBatch batch = new ShapeBatch(count);
+        java.util.Random random = new java.util.Random(7);
+        for (int i = 0; i < count; i++) {
+            if (random.nextBoolean()) {
+                double radius = 1 + random.nextDouble() * 10;
+                shapes[i] = new Circle("Red", radius);
+                batch.addCircle("Red", radius);
+            } else {
+                double length = 1 + random.nextDouble() * 10;
+                double width = 1 + random.nextDouble() * 10;
+                shapes[i] = new Rectangle("Blue", length, width);
+                batch.addRectangle("Blue", length, width);
+            }
+        }
+        
+        double[] objectAreas = new double[count];
+        double[] objectPerimeters = new double[count];
+        long objectNanos = Long.MAX_VALUE;
+        long batchNanos = Long.MAX_VALUE;
+        // Best of several runs; the first ones also serve as JIT warm-up
+        for (int run = 0; run < 10; run++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < count; i++) {
+                objectAreas[i] = shapes[i].calculateArea();
+                objectPerimeters[i] = shapes[i].calculatePerimeter();
+            }
+            objectNanos = Math.min(objectNanos, System.nanoTime() - start);
+            
+            start = System.nanoTime();
+            batch.compute();
+            batchNanos = Math.min(batchNanos, System.nanoTime() - start);
+        }
+        
+        System.out.printf("Shape[] virtual calls: %d us, ShapeBatch columns: %d us (%.1fx) for %,d shapes%n",
+                          objectNanos / 1000, batchNanos / 1000, (double) objectNanos / batchNanos, count);
+        System.out.println("Results match: " + (Math.abs(objectAreas[count - 1] - batch.getArea(count - 1)) < 1e-9));
+    }
+}
+
+// ===== BINARY SHAPE CODEC (fixed-width records, memory-mapped reads) =====
+// File layout:
+//   header (32 bytes): magic, version, shape count, offset of the color table, reserved
+//   records (24 bytes each): [tag: byte][pad: 3][colorId: int][a: double][b: double]
+//     circle: a = radius; rectangle: a = length, b = width
+//   color table: count, then (length: short, UTF-8 bytes) per color
+// Fixed-width records mean shape i is at a known offset, so a reader can decode any shape on demand.
+class ShapeCodec {
+    static final int MAGIC = 0x53485045; // "SHPE"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 32;
+    static final int RECORD_SIZE = 24;
+    static final byte TAG_CIRCLE = 1;
+    static final byte TAG_RECTANGLE = 2;
+    
+    // Streams shapes to a file through one reusable direct buffer
+    static class Writer implements AutoCloseable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(RECORD_SIZE * 8192);
+        private final Map<String, Integer> colorIds = new HashMap<>();
+        private final List<String> colors = new ArrayList<>();
+        private long count;
+        
+        Writer(Path file) throws IOException {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                       StandardOpenOption.TRUNCATE_EXISTING);
+            channel.position(HEADER_SIZE); // Header is written on close, once the count is known
+        }
+        
+        public void write(Shape shape) throws IOException {
+            if (buffer.remaining() < RECORD_SIZE) {
+                flush();
+            }
+            if (shape.getColor() == null) {
+                throw new IllegalArgumentException("Shape has no color");
+            }
+            int colorId = colorIds.computeIfAbsent(shape.getColor(), color -> {
+                // The color table stores each name's length as a short
+                if (color.getBytes(StandardCharsets.UTF_8).length > Short.MAX_VALUE) {
+                    throw new IllegalArgumentException("Color name longer than " + Short.MAX_VALUE + " UTF-8 bytes");
+                }
+                colors.add(color);
+                return colors.size() - 1;
+            });
+            if (shape instanceof Circle) {
+                buffer.put(TAG_CIRCLE).put((byte) 0).putShort((short) 0).putInt(colorId)
+                      .putDouble(((Circle) shape).getRadius()).putDouble(0);
+            } else if (shape instanceof Rectangle) {
+                Rectangle rectangle = (Rectangle) shape;
+                buffer.put(TAG_RECTANGLE).put((byte) 0).putShort((short) 0).putInt(colorId)
+                      .putDouble(rectangle.getLength()).putDouble(rectangle.getWidth());
+            } else {
+                throw new IllegalArgumentException("No binary encoding for " + shape.getClass().getSimpleName());
+            }
+            count++;
+        }
+        
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+        
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+                long colorTableOffset = channel.position();
+                ByteBuffer table = ByteBuffer.allocate(4 + colors.size() * 2 + colors.stream()
+                    .mapToInt(color -> color.getBytes(StandardCharsets.UTF_8).length).sum());
+                table.putInt(colors.size());
+                for (String color : colors) {
+                    byte[] bytes = color.getBytes(StandardCharsets.UTF_8);
+                    table.putShort((short) bytes.length).put(bytes);
+                }
+                table.flip();
+                while (table.hasRemaining()) {
+                    channel.write(table);
+                }
+                
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                header.putInt(MAGIC).putInt(VERSION).putLong(count).putLong(colorTableOffset).putLong(0);
+                header.flip();
+                while (header.hasRemaining()) {
+                    channel.write(header, header.position());
+                }
+            } finally {
+                channel.close();
+            }
+        }
+    }
+    
+    // Maps a shape file and decodes shapes only when they are asked for
+    static class MappedShapeFile implements AutoCloseable {
+        // Whole records per mapping; a single MappedByteBuffer cannot exceed 2 GB
+        private static final int RECORDS_PER_SEGMENT = 1 << 25;
+        
+        private final FileChannel channel;
+        private final MappedByteBuffer[] segments;
+        private final String[] colors;
+        private final long count;
+        
+        MappedShapeFile(Path file) throws IOException {
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+            try {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                while (header.hasRemaining()) {
+                    if (channel.read(header, header.position()) < 0) {
+                        break; // File shorter than a header
+                    }
+                }
+                header.flip();
+                if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC || header.getInt() != VERSION) {
+                    throw new IOException("Not a shape file: " + file);
+                }
+                count = header.getLong();
+                long colorTableOffset = header.getLong();
+                // Never trust the header: the records and the color table must both fit in the file
+                if (count < 0 || count > (channel.size() - HEADER_SIZE) / RECORD_SIZE
+                        || colorTableOffset < HEADER_SIZE + count * RECORD_SIZE
+                        || colorTableOffset > channel.size() - 4) {
+                    throw new IOException("Corrupt shape file header: " + file);
+                }
+                
+                int segmentCount = (int) ((count + RECORDS_PER_SEGMENT - 1) / RECORDS_PER_SEGMENT);
+                segments = new MappedByteBuffer[segmentCount];
+                for (int i = 0; i < segmentCount; i++) {
+                    long first = (long) i * RECORDS_PER_SEGMENT;
+                    long records = Math.min(RECORDS_PER_SEGMENT, count - first);
+                    segments[i] = channel.map(FileChannel.MapMode.READ_ONLY,
+                                              HEADER_SIZE + first * RECORD_SIZE, records * RECORD_SIZE);
+                }
+                
+                ByteBuffer table = channel.map(FileChannel.MapMode.READ_ONLY, colorTableOffset,
+                                               channel.size() - colorTableOffset);
+                int colorCount = table.getInt();
+                if (colorCount < 0 || colorCount > table.remaining() / 2) {
+                    throw new IOException("Corrupt color table: " + file);
+                }
+                colors = new String[colorCount];
+                for (int i = 0; i < colors.length; i++) {
+                    int length = table.getShort();
+                    if (length < 0 || length > table.remaining()) {
+                        throw new IOException("Corrupt color table: " + file);
+                    }
+                    byte[] bytes = new byte[length];
+                    table.get(bytes);
+                    colors[i] = new String(bytes, StandardCharsets.UTF_8);
+                }
+            } catch (IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+        }
+        
+        public long size() {
+            return count;
+        }
+        
+        // Decodes one shape; nothing else in the file is touched
+        public Shape get(long index) {
+            checkIndex(index);
+            MappedByteBuffer segment = segments[(int) (index / RECORDS_PER_SEGMENT)];
+            int offset = (int) (index % RECORDS_PER_SEGMENT) * RECORD_SIZE;
+            int colorId = segment.getInt(offset + 4);
+            if (colorId < 0 || colorId >= colors.length) {
+                throw new IllegalStateException("Corrupt record " + index + ": unknown color id " + colorId);
+            }
+            String color = colors[colorId];
+            switch (segment.get(offset)) {
+                case TAG_CIRCLE:
+                    return new Circle(color, segment.getDouble(offset + 8));
+                case TAG_RECTANGLE:
+                    return new Rectangle(color, segment.getDouble(offset + 8), segment.getDouble(offset + 16));
+                default:
+                    throw new IllegalStateException("Corrupt record " + index + ": unknown tag " + segment.get(offset));
+            }
+        }
+        
+        // Area straight from the mapped record, without creating a Shape
+        public double calculateArea(long index) {
+            checkIndex(index);
+            MappedByteBuffer segment = segments[(int) (index / RECORDS_PER_SEGMENT)];
+            int offset = (int) (index % RECORDS_PER_SEGMENT) * RECORD_SIZE;
+            double a = segment.getDouble(offset + 8);
+            switch (segment.get(offset)) {
+                case TAG_CIRCLE:
+                    return Math.PI * a * a;
+                case TAG_RECTANGLE:
+                    return a * segment.getDouble(offset + 16);
+                default:
+                    throw new IllegalStateException("Corrupt record " + index + ": unknown tag " + segment.get(offset));
+            }
+        }
+        
+        private void checkIndex(long index) {
+            if (index < 0 || index >= count) {
+                throw new IndexOutOfBoundsException("Shape " + index + " of " + count);
+            }
+        }
+        
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+    
+    public static void runBenchmark() {
+        System.out.println("\n=== BINARY SHAPE CODEC BENCHMARK ===");
+        int count = 5_000_000;
+        try {
+            Path file = Files.createTempFile("scene", ".shapes");
+            long start = System.nanoTime();
+            try (Writer writer = new Writer(file)) {
+                Circle circle = new Circle("Red", 1);
+                Rectangle rectangle = new Rectangle("Blue", 2, 3);
+                for (int i = 0; i < count; i++) {
+                    writer.write(i % 2 == 0 ? circle : rectangle);
+                }
+            }
+            long writeNanos = System.nanoTime() - start;
+            
+            start = System.nanoTime();
+            try (MappedShapeFile scene = new MappedShapeFile(file)) {
+                long openNanos = System.nanoTime() - start;
+                start = System.nanoTime();
+                double total = 0;
+                for (long i = 0; i < scene.size(); i++) {
+                    total += scene.calculateArea(i);
+                }
+                long scanNanos = System.nanoTime() - start;
+                System.out.printf("%,d shapes (%d MB): write %d ms, open %d us, full area scan %d ms (total %.1f)%n",
+                                  count, Files.size(file) >> 20, writeNanos / 1_000_000, openNanos / 1000,
+                                  scanNanos / 1_000_000, total);
+            }
+            Files.delete(file);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
+
+// ===== MEMORY-MAPPED ACCOUNT STORE (no per-account objects) =====
+// Each account is a fixed-width record in a mapped file:
+//   [accountNumber: long][ownerId: int][unused: int][balanceCents: long] = 24 bytes
+// The record table is itself an open-addressing hash table keyed by accountNumber,
+// so reopening the file is just a map - there is nothing to rebuild on the heap.
+// Thread-safe: balance updates are read-modify-write, so every operation synchronizes on the store.
+class MappedAccountStore implements AutoCloseable {
+    private static final int MAGIC = 0x41434354; // "ACCT"
+    private static final int HEADER_SIZE = 16;   // magic, capacity, size, unused
+    private static final int RECORD_SIZE = 24;
+    private static final int NUMBER_OFFSET = 0;
+    private static final int OWNER_OFFSET = 8;
+    private static final int BALANCE_OFFSET = 16;
+    private static final long EMPTY = 0;         // Account number 0 marks a free slot
+    
+    // The record table is mapped in segments of 2^24 slots (384 MB), since one mapping is limited to 2 GB
+    private static final int SEGMENT_SHIFT = 24;
+    private static final int SEGMENT_MASK = (1 << SEGMENT_SHIFT) - 1;
+    private static final long SEGMENT_BYTES = (long) RECORD_SIZE << SEGMENT_SHIFT;
+    private static final int MAX_CAPACITY = 1 << 30;
+    public static final int MAX_ACCOUNTS = MAX_CAPACITY / 2;
+    
+    private final FileChannel channel;
+    private final MappedByteBuffer header;
+    private final MappedByteBuffer[] segments;
+    private final int capacity; // Power of two
+    private final int mask;
+    private int size;
+    
+    private MappedAccountStore(FileChannel channel, MappedByteBuffer header, MappedByteBuffer[] segments, int capacity) {
+        this.channel = channel;
+        this.header = header;
+        this.segments = segments;
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.size = header.getInt(8);
+    }
+    
+    // Opens an existing store, or creates one sized for the expected number of accounts
+    public static MappedAccountStore open(Path file, int expectedAccounts) throws IOException {
+        if (expectedAccounts < 0 || expectedAccounts > MAX_ACCOUNTS) {
+            throw new IllegalArgumentException("expectedAccounts must be between 0 and " + MAX_ACCOUNTS);
+        }
+        boolean exists = Files.exists(file) && Files.size(file) >= HEADER_SIZE;
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                                               StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            int capacity;
+            if (exists) {
+                ByteBuffer existing = ByteBuffer.allocate(HEADER_SIZE);
+                channel.read(existing, 0);
+                existing.flip();
+                if (existing.getInt() != MAGIC) {
+                    throw new IOException("Not an account store: " + file);
+                }
+                capacity = existing.getInt();
+                if (capacity <= 0 || capacity > MAX_CAPACITY || Integer.bitCount(capacity) != 1) {
+                    throw new IOException("Corrupt account store header: capacity " + capacity);
+                }
+            } else {
+                // Keep the load factor at or below 0.5 so probe chains stay short
+                capacity = (int) (Long.highestOneBit(Math.max(expectedAccounts, 1) * 2L - 1) << 1);
+            }
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+            int segmentCount = (int) (((long) capacity + SEGMENT_MASK) >>> SEGMENT_SHIFT);
+            MappedByteBuffer[] segments = new MappedByteBuffer[segmentCount];
+            for (int i = 0; i < segmentCount; i++) {
+                long slots = Math.min(capacity - ((long) i << SEGMENT_SHIFT), 1L << SEGMENT_SHIFT);
+                segments[i] = channel.map(FileChannel.MapMode.READ_WRITE, HEADER_SIZE + i * SEGMENT_BYTES,
+                                          slots * RECORD_SIZE);
+            }
+            if (!exists) {
+                header.putInt(0, MAGIC);
+                header.putInt(4, capacity);
+                header.putInt(8, 0);
+            }
+            return new MappedAccountStore(channel, header, segments, capacity);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+    
+    public synchronized boolean addAccount(long accountNumber, int ownerId, long initialBalanceCents) {
+        if (accountNumber == EMPTY) {
+            throw new IllegalArgumentException("Account number 0 is reserved");
+        }
+        if (size >= capacity / 2) {
+            throw new IllegalStateException("Store is full (" + size + " accounts)");
+        }
+        int slot = indexOf(accountNumber);
+        MappedByteBuffer segment = segmentOf(slot);
+        int base = positionOf(slot);
+        if (segment.getLong(base + NUMBER_OFFSET) == accountNumber) {
+            return false; // Already present
+        }
+        segment.putInt(base + OWNER_OFFSET, ownerId);
+        segment.putLong(base + BALANCE_OFFSET, Math.max(initialBalanceCents, 0));
+        segment.putLong(base + NUMBER_OFFSET, accountNumber); // Written last: marks the slot used
+        header.putInt(8, ++size);
+        return true;
+    }
+    
+    public synchronized boolean contains(long accountNumber) {
+        int slot = indexOf(accountNumber);
+        return segmentOf(slot).getLong(positionOf(slot) + NUMBER_OFFSET) == accountNumber;
+    }
+    
+    public synchronized long getBalance(long accountNumber) {
+        int slot = slotOf(accountNumber);
+        return segmentOf(slot).getLong(positionOf(slot) + BALANCE_OFFSET);
+    }
+    
+    public synchronized int getOwnerId(long accountNumber) {
+        int slot = slotOf(accountNumber);
+        return segmentOf(slot).getInt(positionOf(slot) + OWNER_OFFSET);
+    }
+    
+    public synchronized boolean deposit(long accountNumber, long amountCents) {
+        int slot = slotOf(accountNumber);
+        MappedByteBuffer segment = segmentOf(slot);
+        int base = positionOf(slot);
+        long balance = segment.getLong(base + BALANCE_OFFSET);
+        if (amountCents <= 0 || balance > Long.MAX_VALUE - amountCents) {
+            return false;
+        }
+        segment.putLong(base + BALANCE_OFFSET, balance + amountCents);
+        return true;
+    }
+    
+    public synchronized boolean withdraw(long accountNumber, long amountCents) {
+        int slot = slotOf(accountNumber);
+        MappedByteBuffer segment = segmentOf(slot);
+        int base = positionOf(slot);
+        long balance = segment.getLong(base + BALANCE_OFFSET);
+        if (amountCents <= 0 || amountCents > balance) {
+            return false;
+        }
+        segment.putLong(base + BALANCE_OFFSET, balance - amountCents);
+        return true;
+    }
+    
+    public synchronized int size() {
+        return size;
+    }
+    
+    // Overwrites a balance; used by bulk jobs that compute balances elsewhere
+    public synchronized void setBalance(long accountNumber, long balanceCents) {
+        int slot = slotOf(accountNumber);
+        segmentOf(slot).putLong(positionOf(slot) + BALANCE_OFFSET, balanceCents);
+    }
+    
+    // Account numbers of every used slot, in slot order
+    public synchronized long[] accountNumbers() {
+        long[] numbers = new long[size];
+        int count = 0;
+        for (int slot = 0; slot < capacity && count < size; slot++) {
+            long number = segmentOf(slot).getLong(positionOf(slot) + NUMBER_OFFSET);
+            if (number != EMPTY) {
+                numbers[count++] = number;
+            }
+        }
+        return numbers;
+    }
+    
+    // Flushes dirty pages to disk
+    public synchronized void force() {
+        for (MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+        header.force();
+    }
+    
+    @Override
+    public synchronized void close() throws IOException {
+        force();
+        channel.close();
+    }
+    
+    private int slotOf(long accountNumber) {
+        int slot = indexOf(accountNumber);
+        if (segmentOf(slot).getLong(positionOf(slot) + NUMBER_OFFSET) != accountNumber) {
+            throw new IllegalArgumentException("Unknown account: " + accountNumber);
+        }
+        return slot;
+    }
+    
+    // Linear probing: returns the slot holding the account, or the free slot where it would go
+    private int indexOf(long accountNumber) {
+        int slot = hash(accountNumber) & mask;
+        while (true) {
+            long stored = segmentOf(slot).getLong(positionOf(slot) + NUMBER_OFFSET);
+            if (stored == accountNumber || stored == EMPTY) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+    
+    private MappedByteBuffer segmentOf(int slot) {
+        return segments[slot >>> SEGMENT_SHIFT];
+    }
+    
+    private static int positionOf(int slot) {
+        return (slot & SEGMENT_MASK) * RECORD_SIZE;
+    }
+    
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L; // Fibonacci hashing spreads sequential account numbers
+        return (int) (h ^ (h >>> 32));
+    }
+}
+
+// ===== BULK INTEREST ACCRUAL OVER COLUMNAR BALANCES =====
+// Balances and rates live in parallel primitive arrays (one "column" each) instead of
+// BankAccount objects, so nightly accrual is a straight loop over memory split across cores.
+class InterestAccrualEngine {
+    // Keeps balance * rate well inside a long, so the hot loop needs no per-element overflow checks
+    static final long MAX_BALANCE_CENTS = Long.MAX_VALUE / 20_000;
+    static final int MAX_RATE_BASIS_POINTS = 10_000;
+    private static final int SEQUENTIAL_THRESHOLD = 1 << 16;
+    
+    private final long[] accountNumbers;
+    private long[] balancesCents;
+    private long[] scratchCents;         // Each run writes here and is swapped in only if it succeeds
+    private final int[] rateBasisPoints;
+    private final long feeCents;         // Flat fee charged after interest, never below zero
+    private final long interestCapCents; // Most interest any one account can earn per run
+    
+    // The engine takes ownership of the arrays; negative balances are rejected, not clamped
+    public InterestAccrualEngine(long[] accountNumbers, long[] balancesCents, int[] rateBasisPoints,
+                                 long feeCents, long interestCapCents) {
+        if (balancesCents.length != rateBasisPoints.length || accountNumbers.length != balancesCents.length) {
+            throw new IllegalArgumentException("All columns must have the same length");
+        }
+        if (feeCents < 0 || interestCapCents < 0) {
+            throw new IllegalArgumentException("Fee and interest cap must not be negative");
+        }
+        for (int rate : rateBasisPoints) {
+            if (rate < 0 || rate > MAX_RATE_BASIS_POINTS) {
+                throw new IllegalArgumentException("Rate out of range: " + rate + " bp");
+            }
+        }
+        for (int i = 0; i < balancesCents.length; i++) {
+            if (balancesCents[i] < 0 || balancesCents[i] > MAX_BALANCE_CENTS) {
+                throw new IllegalArgumentException("Balance out of range for account " + accountNumbers[i]
+                                                   + ": " + balancesCents[i] + " cents");
+            }
+        }
+        this.accountNumbers = accountNumbers;
+        this.balancesCents = balancesCents;
+        this.scratchCents = new long[balancesCents.length];
+        this.rateBasisPoints = rateBasisPoints;
+        this.feeCents = feeCents;
+        this.interestCapCents = interestCapCents;
+    }
+    
+    // Copies every balance out of the store into columns; all accounts get the same rate.
+    // Balances are range-checked by the constructor before any accrual runs.
+    public static InterestAccrualEngine fromStore(MappedAccountStore store, int rateBasisPoints,
+                                                  long feeCents, long interestCapCents) {
+        long[] numbers = store.accountNumbers();
+        long[] balances = new long[numbers.length];
+        for (int i = 0; i < numbers.length; i++) {
+            balances[i] = store.getBalance(numbers[i]);
+        }
+        int[] rates = new int[numbers.length];
+        java.util.Arrays.fill(rates, rateBasisPoints);
+        return new InterestAccrualEngine(numbers, balances, rates, feeCents, interestCapCents);
+    }
+    
+    // Either every balance is updated or, if any would leave the supported range, none is
+    public void accrue(ForkJoinPool pool) {
+        pool.invoke(new AccrualTask(0, balancesCents.length));
+        commit();
+    }
+    
+    public void accrueSequential() {
+        accrueRange(0, balancesCents.length);
+        commit();
+    }
+    
+    private void commit() {
+        long[] previous = balancesCents;
+        balancesCents = scratchCents;
+        scratchCents = previous;
+    }
+    
+    public void writeBack(MappedAccountStore store) {
+        for (int i = 0; i < accountNumbers.length; i++) {
+            store.setBalance(accountNumbers[i], balancesCents[i]);
+        }
+    }
+    
+    public long totalCents() {
+        return Money.sum(balancesCents);
+    }
+    
+    // The kernel: only loads, integer arithmetic and min/max - no calls, no allocation.
+    // Reads the committed balances and writes the scratch column.
+    private void accrueRange(int from, int to) {
+        long[] balances = balancesCents;
+        long[] results = scratchCents;
+        int[] rates = rateBasisPoints;
+        long fee = feeCents;
+        long cap = interestCapCents;
+        long largest = 0;
+        for (int i = from; i < to; i++) {
+            long balance = balances[i];
+            long interest = (balance * rates[i] + 5_000) / 10_000; // Half-up, like Money.percent
+            long updated = Math.max(balance + Math.min(interest, cap) - fee, 0);
+            results[i] = updated;
+            largest = Math.max(largest, updated);
+        }
+        if (largest > MAX_BALANCE_CENTS) {
+            throw new ArithmeticException("Balance exceeds supported range after accrual");
+        }
+    }
+    
+    private class AccrualTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        
+        private final int from;
+        private final int to;
+        
+        AccrualTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+        
+        @Override
+        protected void compute() {
+            if (to - from <= SEQUENTIAL_THRESHOLD) {
+                accrueRange(from, to);
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new AccrualTask(from, middle), new AccrualTask(middle, to));
+            }
+        }
+    }
+    
+    public static void runBenchmark() {
+        System.out.println("\n=== INTEREST ACCRUAL BENCHMARK ===");
+        int[] sizes = {1_000_000, 10_000_000, 50_000_000};
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        
+        for (int size : sizes) {
+            long bytesNeeded = (long) size * (8 + 8 + 8 + 4);
+            Runtime runtime = Runtime.getRuntime();
+            if (bytesNeeded > runtime.maxMemory() - (runtime.totalMemory() - runtime.freeMemory())) {
+                System.out.println(size + " accounts: skipped, needs ~" + bytesNeeded / (1 << 20) + " MB of heap (raise -Xmx)");
+                continue;
+            }
+            
+            long[] numbers = new long[size];
+            long[] balances = new long[size];
+            int[] rates = new int[size];
+            for (int i = 0; i < size; i++) {
+                numbers[i] = i + 1;
+                balances[i] = 10_000 + (i % 1_000_000);
+                rates[i] = 50 + (i % 200);
+            }
+            InterestAccrualEngine engine = new InterestAccrualEngine(numbers, balances, rates, 25, 50_000);
+            
+            // Warm up both paths so the JIT has compiled the kernel before timing
+            for (int i = 0; i < 3; i++) {
+                engine.accrueSequential();
+                engine.accrue(pool);
+            }
+            long start = System.nanoTime();
+            engine.accrueSequential();
+            long sequentialNanos = System.nanoTime() - start;
+            start = System.nanoTime();
+            engine.accrue(pool);
+            long parallelNanos = System.nanoTime() - start;
+            
+            System.out.printf("%,d accounts: sequential %d ms (%.0f M/s), parallel on %d threads %d ms (%.0f M/s)%n",
+                              size, sequentialNanos / 1_000_000, size * 1000.0 / sequentialNanos,
+                              pool.getParallelism(), parallelNanos / 1_000_000, size * 1000.0 / parallelNanos);
+        }
+    }
+}
+
 // Main class to demonstrate
 public class Group1_EncapsulationAbstract {
     public static void main(String[] args) {
@@ -122,6 +1258,43 @@ public class Group1_EncapsulationAbstract {
         
         account.deposit(500);
         account.withdraw(200);
+        AccountEventSink.shared().flush();
+        
+        // Bulk interest accrual runs over raw cent arrays - no Money or BankAccount objects per balance
+        long[] balances = new long[1_000_000];
+        java.util.Arrays.fill(balances, 100_000); // $1000.00 each
+        long start = System.nanoTime();
+        Money.accrueInterest(balances, 125); // 1.25%
+        System.out.println("Accrued 1.25% interest on " + balances.length + " balances in "
+                           + (System.nanoTime() - start) / 1_000_000 + " ms, total: $"
+                           + Money.ofCents(Money.sum(balances)));
+        
+        System.out.println("\n=== MEMORY-MAPPED ACCOUNT STORE DEMO ===");
+        try {
+            Path storeFile = Files.createTempFile("accounts", ".dat");
+            Files.delete(storeFile); // Let the store create and size it
+            try (MappedAccountStore store = MappedAccountStore.open(storeFile, 1_000_000)) {
+                for (long number = 1; number <= 1_000_000; number++) {
+                    store.addAccount(number, (int) (number % 1000), 100_000);
+                }
+                store.deposit(123456, 50_000);
+                store.withdraw(123456, 20_000);
+                
+                // Nightly job: 1.25% interest capped at $500, minus a $0.25 fee, written back to the file
+                InterestAccrualEngine nightly = InterestAccrualEngine.fromStore(store, 125, 25, 50_000);
+                nightly.accrue(ForkJoinPool.commonPool());
+                nightly.writeBack(store);
+            }
+            // Reopening maps the same file - balances are there without rebuilding anything
+            try (MappedAccountStore store = MappedAccountStore.open(storeFile, 0)) {
+                System.out.println("Accounts in store: " + store.size());
+                System.out.println("Balance of 123456 (cents): " + store.getBalance(123456));
+            }
+            Files.delete(storeFile);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        InterestAccrualEngine.runBenchmark();
         
         System.out.println("\n=== ABSTRACT CLASSES & METHODS DEMO ===");
         Circle circle = new Circle("Red", 5);
@@ -132,5 +1305,32 @@ public class Group1_EncapsulationAbstract {
         
         System.out.println("\nRectangle:");
         rectangle.displayInfo();
+        
+        System.out.println("\n=== SHAPE BATCH (STRUCTURE OF ARRAYS) DEMO ===");
+        ShapeBatch batch = new ShapeBatch(2);
+        batch.addCircle("Red", 5);
+        batch.addRectangle("Blue", 4, 6);
+        batch.compute();
+        batch.displayInfo(0);
+        batch.displayInfo(1);
+        System.out.println("Total area: " + batch.totalArea());
+        ShapeBatch.runBenchmark();
+        
+        System.out.println("\n=== BINARY SHAPE FILE DEMO ===");
+        try {
+            Path sceneFile = Files.createTempFile("scene", ".shapes");
+            try (ShapeCodec.Writer writer = new ShapeCodec.Writer(sceneFile)) {
+                writer.write(circle);
+                writer.write(rectangle);
+            }
+            try (ShapeCodec.MappedShapeFile scene = new ShapeCodec.MappedShapeFile(sceneFile)) {
+                System.out.println("Shapes in file: " + scene.size() + ", decoding shape 1 on demand:");
+                scene.get(1).displayInfo();
+            }
+            Files.delete(sceneFile);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        ShapeCodec.runBenchmark();
     }
 }
\ No newline at end of file
@@ -1,5 +1,44 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 
 // ===== INHERITANCE EXAMPLE =====
 class Animal {
@@ -25,11 +64,18 @@ class Animal {
 }
 
 class Dog extends Animal {
-    private String breed;
+    // A few breeds repeat across every dog, so each dog keeps only a code
+    static final StringDictionary BREEDS = new StringDictionary();
+    
+    private int breedCode;
     
     public Dog(String name, int age, String breed) {
         super(name, age);
-        this.breed = breed;
+        this.breedCode = BREEDS.encode(breed);
+    }
+    
+    public String getBreed() {
+        return BREEDS.decode(breedCode);
     }
     
     @Override
@@ -44,7 +90,7 @@ class Dog extends Animal {
     @Override
     public void displayInfo() {
         super.displayInfo();
-        System.out.println("Breed: " + breed);
+        System.out.println("Breed: " + getBreed());
     }
 }
 
@@ -66,6 +112,413 @@ class Cat extends Animal {
     }
 }
 
+// ===== STRING DICTIONARY =====
+// Maps repetitive string values to dense int codes so records can store a code instead of their own
+// String instance. Lookups in both directions are lock-free; only the first sighting of a value locks.
+// Codes are never reused or removed.
+final class StringDictionary {
+    // Reserved for null, which ConcurrentHashMap cannot hold as a key
+    public static final int NULL_CODE = -1;
+    
+    private final ConcurrentHashMap<String, Integer> codes = new ConcurrentHashMap<>();
+    private volatile String[] values = new String[16];
+    private int size; // Guarded by this
+    
+    public int encode(String value) {
+        if (value == null) {
+            return NULL_CODE;
+        }
+        Integer code = codes.get(value);
+        return (code != null) ? code : append(value);
+    }
+    
+    private synchronized int append(String value) {
+        Integer code = codes.get(value);
+        if (code != null) {
+            return code;
+        }
+        String[] current = values;
+        if (size == current.length) {
+            current = Arrays.copyOf(current, size * 2);
+        }
+        current[size] = value;
+        values = current; // Publish the slot before the code becomes visible through the map
+        codes.put(value, size);
+        return size++;
+    }
+    
+    public String decode(int code) {
+        if (code == NULL_CODE) {
+            return null;
+        }
+        String[] current = values;
+        if (code >= 0 && code < current.length && current[code] != null) {
+            return current[code];
+        }
+        return decodeSlow(code);
+    }
+    
+    // A code handed over without a happens-before edge may be newer than our view of the table
+    private synchronized String decodeSlow(int code) {
+        if (code < 0 || code >= size) {
+            throw new IllegalArgumentException("Unknown code " + code);
+        }
+        return values[code];
+    }
+    
+    public synchronized int size() {
+        return size;
+    }
+}
+
+// Heap cost of a repetitive column: one String per record (as produced by parsing input) versus an
+// int code per record plus one shared dictionary
+final class DictionaryFootprint {
+    public static void runReport() {
+        System.out.println("\n=== DICTIONARY ENCODING FOOTPRINT ===");
+        int count = 10_000_000;
+        String[] breedNames = {"Golden Retriever", "Beagle", "Poodle", "Husky", "Labrador", "Bulldog"};
+        
+        long baseline = usedHeap();
+        String[] plain = new String[count];
+        for (int i = 0; i < count; i++) {
+            plain[i] = new String(breedNames[i % breedNames.length]); // Distinct instance per record
+        }
+        long plainBytes = usedHeap() - baseline;
+        int plainCheck = plain[count - 1].length();
+        plain = null;
+        
+        baseline = usedHeap();
+        StringDictionary dictionary = new StringDictionary();
+        int[] coded = new int[count];
+        for (int i = 0; i < count; i++) {
+            coded[i] = dictionary.encode(new String(breedNames[i % breedNames.length]));
+        }
+        long codedBytes = usedHeap() - baseline;
+        int codedCheck = dictionary.decode(coded[count - 1]).length();
+        
+        System.out.printf("String per record: %,d MB%n", plainBytes >> 20);
+        System.out.printf("Dictionary codes:  %,d MB (%d distinct values)%n", codedBytes >> 20, dictionary.size());
+        System.out.printf("Saved %,d MB over %,d records (checks %d/%d)%n",
+                          (plainBytes - codedBytes) >> 20, count, plainCheck, codedCheck);
+    }
+    
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
+
+// ===== ENTITY-COMPONENT SIMULATION =====
+// For very large populations the one-object-per-animal model above does not scale. Here an animal is
+// just an index: each property lives in its own primitive array (a component), and systems sweep those
+// arrays once per tick. Dog/Cat objects are only built on demand, for a single entity.
+interface AnimalSystem {
+    void update(AnimalWorld world, int from, int to, long tick);
+}
+
+// Hunger and energy drive the awake -> eating -> awake ... -> sleeping -> awake cycle
+final class MetabolismSystem implements AnimalSystem {
+    static final int HUNGRY = 60;
+    static final int RESTED = 100;
+    
+    @Override
+    public void update(AnimalWorld world, int from, int to, long tick) {
+        byte[] species = world.species;
+        byte[] state = world.state;
+        byte[] hunger = world.hunger;
+        byte[] energy = world.energy;
+        for (int i = from; i < to; i++) {
+            int h = hunger[i];
+            int e = energy[i];
+            switch (state[i]) {
+                case AnimalWorld.AWAKE:
+                    h += AnimalWorld.HUNGER_RATE[species[i]];
+                    e -= 1;
+                    if (h >= HUNGRY) {
+                        state[i] = AnimalWorld.EATING;
+                    } else if (e <= 0) {
+                        state[i] = AnimalWorld.SLEEPING;
+                    }
+                    break;
+                case AnimalWorld.EATING:
+                    h -= 10;
+                    if (h <= 0) {
+                        h = 0;
+                        state[i] = AnimalWorld.AWAKE;
+                    }
+                    break;
+                default: // SLEEPING
+                    e += 5;
+                    if (e >= RESTED) {
+                        e = RESTED;
+                        state[i] = AnimalWorld.AWAKE;
+                    }
+                    break;
+            }
+            hunger[i] = (byte) h;
+            energy[i] = (byte) e;
+        }
+    }
+}
+
+// Entities have birthdays spread across the year, so only about 1/TICKS_PER_YEAR of them age per tick
+final class AgingSystem implements AnimalSystem {
+    static final int TICKS_PER_YEAR = 365;
+    
+    @Override
+    public void update(AnimalWorld world, int from, int to, long tick) {
+        short[] age = world.age;
+        int phase = (int) (tick % TICKS_PER_YEAR);
+        // First entity in [from, to) whose birthday (id % TICKS_PER_YEAR) is today
+        int first = from + Math.floorMod(phase - from, TICKS_PER_YEAR);
+        for (int i = first; i < to; i += TICKS_PER_YEAR) {
+            age[i]++;
+        }
+    }
+}
+
+class AnimalWorld implements AutoCloseable {
+    static final byte ANIMAL = 0;
+    static final byte DOG = 1;
+    static final byte CAT = 2;
+    
+    static final byte AWAKE = 0;
+    static final byte EATING = 1;
+    static final byte SLEEPING = 2;
+    
+    // Per-species tuning is data indexed by the species component, not a virtual call
+    static final int[] HUNGER_RATE = {1, 3, 2};
+    private static final String[] STATE_NAMES = {"awake", "eating", "sleeping"};
+    
+    // Components, one slot per entity
+    final int[] nameIndex;
+    final short[] age;
+    final byte[] species;
+    final byte[] state;
+    final byte[] hunger;
+    final byte[] energy;
+    final int[] trait; // Dogs: Dog.BREEDS code; cats: 1 if indoor
+    
+    private final StringDictionary names = new StringDictionary();
+    private int count;
+    
+    private final AnimalSystem[] systems = {new MetabolismSystem(), new AgingSystem()};
+    
+    // Tick workers are started once and parked between ticks, so a tick hands out no tasks and allocates nothing
+    private final Thread[] workers;
+    private final AtomicInteger pending = new AtomicInteger();
+    private volatile long generation;
+    private volatile boolean running = true;
+    private volatile Thread coordinator;
+    private long tick;
+    
+    public AnimalWorld(int capacity, int threads) {
+        nameIndex = new int[capacity];
+        age = new short[capacity];
+        species = new byte[capacity];
+        state = new byte[capacity];
+        hunger = new byte[capacity];
+        energy = new byte[capacity];
+        trait = new int[capacity];
+        
+        workers = new Thread[threads];
+        for (int w = 0; w < threads; w++) {
+            int worker = w;
+            workers[w] = new Thread(() -> workerLoop(worker), "animal-tick-" + w);
+            workers[w].setDaemon(true);
+            workers[w].start();
+        }
+    }
+    
+    public int spawnAnimal(String name, int years) {
+        return spawn(name, years, ANIMAL, 0);
+    }
+    
+    public int spawnDog(String name, int years, String breed) {
+        return spawn(name, years, DOG, Dog.BREEDS.encode(breed));
+    }
+    
+    public int spawnCat(String name, int years, boolean isIndoor) {
+        return spawn(name, years, CAT, isIndoor ? 1 : 0);
+    }
+    
+    // Not thread-safe; populate the world before ticking it
+    private int spawn(String name, int years, byte kind, int traitValue) {
+        if (count == nameIndex.length) {
+            throw new IllegalStateException("World is full (" + count + " entities)");
+        }
+        int id = count++;
+        nameIndex[id] = names.encode(name);
+        age[id] = (short) years;
+        species[id] = kind;
+        state[id] = AWAKE;
+        hunger[id] = (byte) (id % MetabolismSystem.HUNGRY); // Staggered so the population is not in lockstep
+        energy[id] = (byte) MetabolismSystem.RESTED;
+        trait[id] = traitValue;
+        return id;
+    }
+    
+    public int size() {
+        return count;
+    }
+    
+    public long currentTick() {
+        return tick;
+    }
+    
+    // Runs every system over the whole population, split into one contiguous chunk per worker.
+    // Synchronized so concurrent callers take turns instead of overwriting coordinator/pending,
+    // and so close() cannot stop the workers while a tick is waiting on them.
+    public synchronized void tick() {
+        if (!running) {
+            throw new IllegalStateException("World is closed");
+        }
+        coordinator = Thread.currentThread();
+        pending.set(workers.length);
+        generation = ++tick;
+        for (Thread worker : workers) {
+            LockSupport.unpark(worker);
+        }
+        while (pending.get() > 0) {
+            LockSupport.park(this);
+        }
+    }
+    
+    private void workerLoop(int worker) {
+        long seen = 0;
+        while (true) {
+            while (generation == seen && running) {
+                LockSupport.park(this);
+            }
+            if (!running) {
+                return;
+            }
+            seen = generation;
+            int chunk = (count + workers.length - 1) / workers.length;
+            int from = Math.min(count, worker * chunk);
+            int to = Math.min(count, from + chunk);
+            for (AnimalSystem system : systems) {
+                system.update(this, from, to, seen);
+            }
+            if (pending.decrementAndGet() == 0) {
+                LockSupport.unpark(coordinator);
+            }
+        }
+    }
+    
+    // Builds a classic object snapshot of one entity; later ticks do not update it
+    public Animal materialize(int id) {
+        checkId(id);
+        String name = names.decode(nameIndex[id]);
+        switch (species[id]) {
+            case DOG:
+                return new Dog(name, age[id], Dog.BREEDS.decode(trait[id]));
+            case CAT:
+                return new Cat(name, age[id], trait[id] == 1);
+            default:
+                return new Animal(name, age[id]);
+        }
+    }
+    
+    public String stateOf(int id) {
+        checkId(id);
+        return STATE_NAMES[state[id]];
+    }
+    
+    public long countInState(byte wanted) {
+        long total = 0;
+        for (int i = 0; i < count; i++) {
+            if (state[i] == wanted) {
+                total++;
+            }
+        }
+        return total;
+    }
+    
+    private void checkId(int id) {
+        if (id < 0 || id >= count) {
+            throw new IndexOutOfBoundsException("No entity " + id);
+        }
+    }
+    
+    @Override
+    public synchronized void close() {
+        running = false;
+        for (Thread worker : workers) {
+            LockSupport.unpark(worker);
+        }
+    }
+    
+    public static void runBenchmark() {
+        System.out.println("\n=== ENTITY-COMPONENT TICK BENCHMARK ===");
+        // 1M keeps the default run short; -Decs.entities=10000000 gives the full-scale figure
+        int count = Integer.getInteger("ecs.entities", 1_000_000);
+        int ticks = 50;
+        String[] breedNames = {"Golden Retriever", "Beagle", "Poodle", "Husky"};
+        
+        int cores = Runtime.getRuntime().availableProcessors();
+        int threads = 1;
+        while (true) {
+            try (AnimalWorld world = new AnimalWorld(count, threads)) {
+                for (int i = 0; i < count; i++) {
+                    String name = "Animal-" + (i % 1_000);
+                    switch (i % 3) {
+                        case 0:
+                            world.spawnDog(name, i % 15, breedNames[i % breedNames.length]);
+                            break;
+                        case 1:
+                            world.spawnCat(name, i % 20, i % 2 == 0);
+                            break;
+                        default:
+                            world.spawnAnimal(name, i % 10);
+                            break;
+                    }
+                }
+                world.tick(); // Warm-up
+                
+                long allocatedBefore = allocatedBytes(world.workers);
+                long best = Long.MAX_VALUE;
+                for (int run = 0; run < ticks; run++) {
+                    long start = System.nanoTime();
+                    world.tick();
+                    best = Math.min(best, System.nanoTime() - start);
+                }
+                long allocated = allocatedBytes(world.workers) - allocatedBefore;
+                
+                System.out.printf("%d thread(s): %.1f ms per tick for %,d entities (%s), %s%n",
+                                  threads, best / 1e6, count,
+                                  allocated < 0 ? "allocation not measurable" : allocated + " bytes allocated by tick workers",
+                                  world.countInState(EATING) + " eating");
+            }
+            
+            if (threads == cores) {
+                break;
+            }
+            threads = Math.min(threads * 2, cores);
+        }
+    }
+    
+    private static long allocatedBytes(Thread[] threads) {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+            return -1;
+        }
+        long[] ids = new long[threads.length];
+        for (int i = 0; i < threads.length; i++) {
+            ids[i] = threads[i].getId();
+        }
+        long total = 0;
+        for (long bytes : ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(ids)) {
+            total += bytes;
+        }
+        return total;
+    }
+}
+
 // ===== COMPOSITION EXAMPLE (Strong relationship - parts cannot exist without whole) =====
 class Room {
     private String type;
@@ -76,6 +529,14 @@ class Room {
         this.area = area;
     }
     
+    public String getType() {
+        return type;
+    }
+    
+    public double getArea() {
+        return area;
+    }
+    
     public void describe() {
         System.out.println(type + " room, Area: " + area + " sq ft");
     }
@@ -94,6 +555,10 @@ class House {
         rooms.add(new Room("Bedroom", 200));
     }
     
+    public List<Room> getRooms() {
+        return Collections.unmodifiableList(rooms);
+    }
+    
     public void describeHouse() {
         System.out.println("House at: " + address);
         System.out.println("Contains:");
@@ -103,6 +568,247 @@ class House {
     }
 }
 
+// ===== COMPACT HOUSE PORTFOLIO =====
+// Same composition as House/Room, laid out for very large portfolios. Rooms of every house sit in
+// shared primitive arrays - a byte type code and a float area per room - and house h owns rooms
+// [roomStart[h], roomStart[h + 1]). Once built, the portfolio is immutable and safe to scan in parallel.
+final class HousePortfolio {
+    static final String[] ROOM_TYPES = {"Living", "Kitchen", "Bedroom", "Bathroom", "Dining", "Office"};
+    static final int PARALLEL_THRESHOLD = 1 << 16;
+    
+    private final String[] addresses;
+    private final int[] roomStart;
+    private final byte[] roomType;
+    private final float[] roomArea;
+    
+    private HousePortfolio(Builder builder) {
+        this.addresses = Arrays.copyOf(builder.addresses, builder.houses);
+        this.roomStart = Arrays.copyOf(builder.roomStart, builder.houses + 1);
+        this.roomType = Arrays.copyOf(builder.roomType, builder.rooms);
+        this.roomArea = Arrays.copyOf(builder.roomArea, builder.rooms);
+    }
+    
+    static byte roomTypeCode(String type) {
+        for (int i = 0; i < ROOM_TYPES.length; i++) {
+            if (ROOM_TYPES[i].equals(type)) {
+                return (byte) i;
+            }
+        }
+        throw new IllegalArgumentException("Unknown room type: " + type);
+    }
+    
+    static final class Builder {
+        private String[] addresses = new String[16];
+        private int[] roomStart = new int[17];
+        private byte[] roomType = new byte[64];
+        private float[] roomArea = new float[64];
+        private int houses;
+        private int rooms;
+        
+        // Same rooms the House constructor creates
+        public Builder addStandardHouse(String address) {
+            return startHouse(address).addRoom("Living", 300).addRoom("Kitchen", 150).addRoom("Bedroom", 200);
+        }
+        
+        // Rooms added afterwards belong to this house
+        public Builder startHouse(String address) {
+            if (houses == addresses.length) {
+                addresses = Arrays.copyOf(addresses, houses * 2);
+                roomStart = Arrays.copyOf(roomStart, houses * 2 + 1);
+            }
+            addresses[houses++] = address;
+            roomStart[houses] = rooms;
+            return this;
+        }
+        
+        public Builder addRoom(String type, double area) {
+            if (houses == 0) {
+                throw new IllegalStateException("startHouse must be called before addRoom");
+            }
+            if (!(area >= 0 && area <= Float.MAX_VALUE)) {
+                throw new IllegalArgumentException("Room area must be a non-negative float: " + area);
+            }
+            if (rooms == roomType.length) {
+                roomType = Arrays.copyOf(roomType, rooms * 2);
+                roomArea = Arrays.copyOf(roomArea, rooms * 2);
+            }
+            roomType[rooms] = roomTypeCode(type);
+            roomArea[rooms] = (float) area;
+            rooms++;
+            roomStart[houses] = rooms;
+            return this;
+        }
+        
+        public HousePortfolio build() {
+            return new HousePortfolio(this);
+        }
+    }
+    
+    public int houseCount() {
+        return addresses.length;
+    }
+    
+    public int roomCount() {
+        return roomType.length;
+    }
+    
+    // Prints what House.describeHouse prints for the same house. Areas are stored as float, so this
+    // matches exactly for areas of up to 7 significant digits (e.g. 150.25), which is what a room has.
+    public void describeHouse(int house) {
+        if (house < 0 || house >= addresses.length) {
+            throw new IndexOutOfBoundsException("No house " + house);
+        }
+        System.out.println("House at: " + addresses[house]);
+        System.out.println("Contains:");
+        for (int r = roomStart[house]; r < roomStart[house + 1]; r++) {
+            // Float.toString gives the shortest decimal that reads back as the float: 12.3, not 12.300000190734863
+            System.out.println(ROOM_TYPES[roomType[r]] + " room, Area: " + Float.toString(roomArea[r]) + " sq ft");
+        }
+    }
+    
+    public double houseArea(int house) {
+        double total = 0;
+        for (int r = roomStart[house]; r < roomStart[house + 1]; r++) {
+            total += roomArea[r];
+        }
+        return total;
+    }
+    
+    // Indexed by room type code, see ROOM_TYPES
+    public double[] totalAreaByRoomType() {
+        return ForkJoinPool.commonPool().invoke(new AreaByTypeTask(0, roomType.length));
+    }
+    
+    // Houses per total-area bucket [i * bucketWidth, (i + 1) * bucketWidth); the last bucket takes the rest
+    public long[] houseAreaHistogram(double bucketWidth, int buckets) {
+        if (!(bucketWidth > 0) || Double.isInfinite(bucketWidth) || buckets <= 0) {
+            throw new IllegalArgumentException("Need a positive, finite bucket width and at least one bucket");
+        }
+        return ForkJoinPool.commonPool().invoke(new HistogramTask(0, addresses.length, bucketWidth, buckets));
+    }
+    
+    private class AreaByTypeTask extends RecursiveTask<double[]> {
+        private static final long serialVersionUID = 1L;
+        
+        private final int from;
+        private final int to;
+        
+        AreaByTypeTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+        
+        @Override
+        protected double[] compute() {
+            if (to - from <= PARALLEL_THRESHOLD) {
+                double[] totals = new double[ROOM_TYPES.length];
+                for (int r = from; r < to; r++) {
+                    totals[roomType[r]] += roomArea[r];
+                }
+                return totals;
+            }
+            int middle = (from + to) >>> 1;
+            AreaByTypeTask left = new AreaByTypeTask(from, middle);
+            left.fork();
+            double[] totals = new AreaByTypeTask(middle, to).compute();
+            double[] other = left.join();
+            for (int t = 0; t < totals.length; t++) {
+                totals[t] += other[t];
+            }
+            return totals;
+        }
+    }
+    
+    private class HistogramTask extends RecursiveTask<long[]> {
+        private static final long serialVersionUID = 1L;
+        
+        private final int from;
+        private final int to;
+        private final double bucketWidth;
+        private final int buckets;
+        
+        HistogramTask(int from, int to, double bucketWidth, int buckets) {
+            this.from = from;
+            this.to = to;
+            this.bucketWidth = bucketWidth;
+            this.buckets = buckets;
+        }
+        
+        @Override
+        protected long[] compute() {
+            if (to - from <= PARALLEL_THRESHOLD) {
+                long[] counts = new long[buckets];
+                for (int h = from; h < to; h++) {
+                    counts[Math.min(buckets - 1, (int) (houseArea(h) / bucketWidth))]++;
+                }
+                return counts;
+            }
+            int middle = (from + to) >>> 1;
+            HistogramTask left = new HistogramTask(from, middle, bucketWidth, buckets);
+            left.fork();
+            long[] counts = new HistogramTask(middle, to, bucketWidth, buckets).compute();
+            long[] other = left.join();
+            for (int b = 0; b < buckets; b++) {
+                counts[b] += other[b];
+            }
+            return counts;
+        }
+    }
+    
+    public static void runBenchmark() {
+        System.out.println("\n=== HOUSE PORTFOLIO BENCHMARK ===");
+        int count = 1_000_000;
+        String[] addresses = new String[count];
+        for (int i = 0; i < count; i++) {
+            addresses[i] = (i + 1) + " Main St";
+        }
+        
+        long baseline = usedHeap();
+        List<House> objects = new ArrayList<>(count);
+        for (String address : addresses) {
+            objects.add(new House(address));
+        }
+        long objectBytes = usedHeap() - baseline;
+        long start = System.nanoTime();
+        double[] objectTotals = new double[ROOM_TYPES.length];
+        for (House house : objects) {
+            for (Room room : house.getRooms()) {
+                objectTotals[roomTypeCode(room.getType())] += room.getArea();
+            }
+        }
+        long objectNanos = System.nanoTime() - start;
+        objects = null;
+        
+        baseline = usedHeap();
+        Builder builder = new Builder();
+        for (String address : addresses) {
+            builder.addStandardHouse(address);
+        }
+        HousePortfolio portfolio = builder.build();
+        builder = null;
+        long arenaBytes = usedHeap() - baseline;
+        portfolio.totalAreaByRoomType(); // Warm-up
+        start = System.nanoTime();
+        double[] arenaTotals = portfolio.totalAreaByRoomType();
+        long arenaNanos = System.nanoTime() - start;
+        long[] histogram = portfolio.houseAreaHistogram(250, 4);
+        
+        System.out.printf("House/Room objects: %,d MB, area by type in %d ms%n", objectBytes >> 20, objectNanos / 1_000_000);
+        System.out.printf("Portfolio arena:    %,d MB, area by type in %d ms (%d thread(s))%n",
+                          arenaBytes >> 20, arenaNanos / 1_000_000, ForkJoinPool.commonPool().getParallelism());
+        System.out.println("Totals match: " + Arrays.equals(objectTotals, arenaTotals)
+                           + ", house area histogram (250 sq ft buckets): " + Arrays.toString(histogram));
+    }
+    
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
+
 // ===== AGGREGATION EXAMPLE (Weak relationship - parts can exist independently) =====
 class Student {
     private String name;
@@ -113,6 +819,14 @@ class Student {
         this.studentId = studentId;
     }
     
+    public String getName() {
+        return name;
+    }
+    
+    public String getStudentId() {
+        return studentId;
+    }
+    
     public void study() {
         System.out.println(name + " is studying");
     }
@@ -123,29 +837,1021 @@ class Student {
     }
 }
 
-class University {
+// Student index for large registrars. Lookups by id go through a ConcurrentHashMap and name queries
+// through a ConcurrentSkipListSet, so readers never take a lock. Writers are serialized among themselves,
+// and each write stamps its entries with a new version. Snapshots then see exactly the writes up to
+// the version at which they were opened.
+class StudentRegistry {
+    private static final class Entry {
+        final String name;
+        final String id;
+        final Student student;
+        final long addedAt;
+        volatile long removedAt = Long.MAX_VALUE;
+        
+        Entry(String name, String id, Student student, long addedAt) {
+            this.name = name;
+            this.id = id;
+            this.student = student;
+            this.addedAt = addedAt;
+        }
+        
+        boolean visibleAt(long version) {
+            return addedAt <= version && removedAt > version;
+        }
+    }
+    
+    // Re-adding a removed id creates a new entry, so addedAt keeps the keys distinct.
+    // Students without a name sort first.
+    private static final Comparator<Entry> BY_NAME =
+        Comparator.comparing((Entry e) -> e.name, Comparator.nullsFirst(Comparator.<String>naturalOrder()))
+                  .thenComparing(e -> e.id)
+                  .thenComparingLong(e -> e.addedAt);
+    private final ConcurrentHashMap<String, Entry> byId = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<Entry> byName = new ConcurrentSkipListSet<>(BY_NAME);
+    private final Set<Snapshot> openSnapshots = ConcurrentHashMap.newKeySet();
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final ArrayDeque<Entry> tombstones = new ArrayDeque<>(); // In removal order; guarded by writeLock
+    private volatile long version;
+    
+    public boolean add(Student student) {
+        writeLock.lock();
+        try {
+            if (byId.containsKey(student.getStudentId())) {
+                return false;
+            }
+            long next = version + 1;
+            Entry entry = new Entry(student.getName(), student.getStudentId(), student, next);
+            byId.put(entry.id, entry);
+            byName.add(entry);
+            version = next; // Publishes the write to snapshots
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+    
+    // Inserts the whole batch under one lock acquisition and one version, so a snapshot sees all of it or
+    // none of it. Returns the number of students skipped because their id was already enrolled.
+    public int addAll(List<Student> batch) {
+        writeLock.lock();
+        try {
+            long next = version + 1;
+            int duplicates = 0;
+            for (Student student : batch) {
+                Entry entry = new Entry(student.getName(), student.getStudentId(), student, next);
+                if (byId.putIfAbsent(entry.id, entry) == null) {
+                    byName.add(entry);
+                } else {
+                    duplicates++;
+                }
+            }
+            version = next;
+            return duplicates;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+    
+    public boolean remove(String studentId) {
+        writeLock.lock();
+        try {
+            Entry entry = byId.remove(studentId);
+            if (entry == null) {
+                return false;
+            }
+            // The name entry stays as a tombstone while an older snapshot may still need it
+            long next = version + 1;
+            entry.removedAt = next;
+            version = next;
+            tombstones.add(entry);
+            purgeTombstones();
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+    
+    // Caller holds writeLock, which snapshot() also takes, so no snapshot can register an older
+    // version between the scan below and the removals
+    private void purgeTombstones() {
+        long oldest = version;
+        for (Snapshot snapshot : openSnapshots) {
+            oldest = Math.min(oldest, snapshot.version);
+        }
+        while (!tombstones.isEmpty() && tombstones.peek().removedAt <= oldest) {
+            byName.remove(tombstones.poll());
+        }
+    }
+    
+    public Student get(String studentId) {
+        Entry entry = byId.get(studentId);
+        return (entry != null) ? entry.student : null;
+    }
+    
+    public int size() {
+        return byId.size();
+    }
+    
+    // Live students with fromName <= name < toName, in name order
+    public List<Student> findByNameRange(String fromName, String toName) {
+        List<Student> result = new ArrayList<>();
+        long current = version;
+        for (Entry entry : byName.subSet(probe(fromName), probe(toName))) {
+            if (entry.visibleAt(current)) {
+                result.add(entry.student);
+            }
+        }
+        return result;
+    }
+    
+    public List<Student> findByNamePrefix(String prefix) {
+        return findByNameRange(prefix, prefix + Character.MAX_VALUE);
+    }
+    
+    // Sorts before every entry with this name
+    private static Entry probe(String name) {
+        return new Entry(name, "", null, Long.MIN_VALUE);
+    }
+    
+    // Close the snapshot when done with it, or removed students are kept around for it
+    public Snapshot snapshot() {
+        writeLock.lock();
+        try {
+            Snapshot snapshot = new Snapshot(version);
+            openSnapshots.add(snapshot);
+            return snapshot;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+    
+    // Pages through the registry in name order as it was when the snapshot was opened
+    public final class Snapshot implements AutoCloseable {
+        private final long version;
+        private Entry last;
+        private boolean exhausted;
+        
+        private Snapshot(long version) {
+            this.version = version;
+        }
+        
+        public List<Student> nextPage(int pageSize) {
+            if (pageSize < 1) {
+                throw new IllegalArgumentException("Page size must be at least 1, got " + pageSize);
+            }
+            List<Student> page = new ArrayList<>(pageSize);
+            if (exhausted) {
+                return page;
+            }
+            NavigableSet<Entry> rest = (last == null) ? byName : byName.tailSet(last, false);
+            for (Entry entry : rest) {
+                if (entry.visibleAt(version)) {
+                    page.add(entry.student);
+                    last = entry;
+                    if (page.size() == pageSize) {
+                        return page;
+                    }
+                }
+            }
+            exhausted = true;
+            close();
+            return page;
+        }
+        
+        public boolean hasMore() {
+            return !exhausted;
+        }
+        
+        // Tombstones this snapshot was holding back are dropped now rather than on the next removal
+        @Override
+        public void close() {
+            writeLock.lock();
+            try {
+                if (openSnapshots.remove(this)) {
+                    purgeTombstones();
+                }
+            } finally {
+                writeLock.unlock();
+            }
+        }
+    }
+    
+    public static void runBenchmark() {
+        System.out.println("\n=== STUDENT REGISTRY BENCHMARK ===");
+        int count = 1_000_000;
+        int removals = 2_000;
+        Student[] students = new Student[count];
+        for (int i = 0; i < count; i++) {
+            students[i] = new Student("Student-" + (i * 7919L % count), "S" + i);
+        }
+        
+        // Old approach: ArrayList with linear removal
+        List<Student> list = new ArrayList<>(Arrays.asList(students));
+        long start = System.nanoTime();
+        for (int i = 0; i < removals; i++) {
+            list.remove(students[count - 1 - i * 100]);
+        }
+        long listNanos = System.nanoTime() - start;
+        
+        StudentRegistry registry = new StudentRegistry();
+        for (Student student : students) {
+            registry.add(student);
+        }
+        start = System.nanoTime();
+        for (int i = 0; i < removals; i++) {
+            registry.remove(students[count - 1 - i * 100].getStudentId());
+        }
+        long registryNanos = System.nanoTime() - start;
+        System.out.printf("%,d removals from %,d students: list %d ms, registry %d ms%n",
+                          removals, count, listNanos / 1_000_000, registryNanos / 1_000_000);
+        
+        // Concurrent enrollments while a reader pages through a snapshot
+        int cores = Runtime.getRuntime().availableProcessors();
+        int writers = Math.max(1, cores - 1);
+        int perWriter = 100_000;
+        CountDownLatch done = new CountDownLatch(writers);
+        Snapshot snapshot = registry.snapshot();
+        int expected = registry.size();
+        for (int w = 0; w < writers; w++) {
+            int writer = w;
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < perWriter; i++) {
+                    registry.add(new Student("Late-" + writer + "-" + i, "L" + writer + "-" + i));
+                    if (i % 10 == 0) {
+                        registry.remove("S" + (writer * perWriter + i)); // Removals must not leak into the snapshot
+                    }
+                }
+                done.countDown();
+            });
+            thread.start();
+        }
+        int seen = 0;
+        start = System.nanoTime();
+        while (snapshot.hasMore()) {
+            seen += snapshot.nextPage(1_000).size();
+        }
+        long pageNanos = System.nanoTime() - start;
+        try {
+            done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        System.out.printf("Snapshot paged %,d students in %d ms during %d concurrent writer(s) (expected %,d)%n",
+                          seen, pageNanos / 1_000_000, writers, expected);
+        
+        start = System.nanoTime();
+        int hits = 0;
+        for (int i = 0; i < count; i++) {
+            if (registry.get("S" + i) != null) {
+                hits++;
+            }
+        }
+        System.out.printf("%,d lookups by id: %d ms (%,d hits), prefix \"Student-99999\": %d match(es)%n",
+                          count, (System.nanoTime() - start) / 1_000_000, hits,
+                          registry.findByNamePrefix("Student-99999").size());
+    }
+}
+
+// ===== BULK CSV ENROLLMENT =====
+// Loads "name,studentId" rows straight from a memory-mapped file. The file is cut into chunks at line
+// boundaries and parsed on a worker pool. Fields are located as byte ranges, and Strings are only built
+// for rows that pass validation. Valid rows reach the registry in batches rather than one add at a time.
+// Throughput is bounded by the registry's sorted name index, not by parsing.
+class StudentCsvImporter {
+    static final int CHUNK_BYTES = 8 << 20;
+    static final int MAX_LINE_BYTES = 4_096;
+    static final int BATCH_SIZE = 10_000;
+    static final int MAX_REPORTED_ERRORS = 100;
+    
+    static final class ImportReport {
+        long rows;
+        long imported;
+        long duplicates;
+        long errorCount;
+        final List<String> errors = new ArrayList<>(); // First MAX_REPORTED_ERRORS problems, with line numbers
+        long elapsedNanos;
+        
+        double rowsPerSecond() {
+            return rows / (elapsedNanos / 1e9);
+        }
+        
+        @Override
+        public String toString() {
+            return String.format("%,d rows, %,d imported, %,d duplicate ids, %,d bad lines in %d ms (%,.0f rows/sec)",
+                                 rows, imported, duplicates, errorCount, elapsedNanos / 1_000_000, rowsPerSecond());
+        }
+    }
+    
+    // Result of one chunk; line numbers are relative to the chunk until the chunks are stitched together
+    private static final class ChunkResult {
+        long lines; // Physical lines, including header and blank lines
+        long rows;
+        long imported;
+        long duplicates;
+        long errorCount;
+        final List<Long> errorLines = new ArrayList<>();
+        final List<String> errorMessages = new ArrayList<>();
+    }
+    
+    private final int threads;
+    
+    StudentCsvImporter(int threads) {
+        this.threads = threads;
+    }
+    
+    public ImportReport importFile(Path file, StudentRegistry registry) throws IOException {
+        long start = System.nanoTime();
+        AtomicLong progress = new AtomicLong();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<ChunkResult>> futures = new ArrayList<>();
+        long size;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            size = channel.size();
+            for (long from = 0; from < size; from += CHUNK_BYTES) {
+                long chunkStart = from;
+                long chunkEnd = Math.min(size, from + CHUNK_BYTES);
+                futures.add(pool.submit(() -> parseChunk(channel, size, chunkStart, chunkEnd, registry, progress)));
+            }
+            pool.shutdown();
+            while (!pool.awaitTermination(1, TimeUnit.SECONDS)) {
+                System.out.printf("  ... %,d rows processed%n", progress.get());
+            }
+            
+            ImportReport report = new ImportReport();
+            long lineBase = 0;
+            for (Future<ChunkResult> future : futures) {
+                ChunkResult chunk = future.get();
+                report.rows += chunk.rows;
+                report.imported += chunk.imported;
+                report.duplicates += chunk.duplicates;
+                report.errorCount += chunk.errorCount;
+                for (int i = 0; i < chunk.errorLines.size() && report.errors.size() < MAX_REPORTED_ERRORS; i++) {
+                    report.errors.add("line " + (lineBase + chunk.errorLines.get(i)) + ": " + chunk.errorMessages.get(i));
+                }
+                lineBase += chunk.lines;
+            }
+            report.elapsedNanos = System.nanoTime() - start;
+            return report;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Import interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Import failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+    
+    // Owns every line that starts in [chunkStart, chunkEnd); the last one may run past chunkEnd
+    private static ChunkResult parseChunk(FileChannel channel, long size, long chunkStart, long chunkEnd,
+                                          StudentRegistry registry, AtomicLong progress) throws IOException {
+        // One byte of overlap with the previous chunk tells us whether chunkStart begins a fresh line
+        long mapStart = (chunkStart == 0) ? 0 : chunkStart - 1;
+        long mapEnd = Math.min(size, chunkEnd + MAX_LINE_BYTES);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, mapStart, mapEnd - mapStart);
+        int limit = buffer.limit();
+        int ownedEnd = (int) (chunkEnd - mapStart);
+        ChunkResult result = new ChunkResult();
+        List<Student> batch = new ArrayList<>(BATCH_SIZE);
+        byte[] scratch = new byte[MAX_LINE_BYTES];
+        
+        int pos = 0;
+        if (chunkStart > 0) {
+            while (pos < limit && buffer.get(pos) != '\n') {
+                pos++;
+            }
+            pos++; // The partial line up to here belongs to the previous chunk
+        }
+        while (pos < ownedEnd) {
+            int lineStart = pos;
+            int comma = -1;
+            int commas = 0;
+            while (pos < limit && buffer.get(pos) != '\n') {
+                if (buffer.get(pos) == ',') {
+                    commas++;
+                    if (comma < 0) {
+                        comma = pos;
+                    }
+                }
+                pos++;
+            }
+            boolean pastWindow = pos == limit && mapEnd < size;
+            int lineEnd = pos;
+            if (lineEnd > lineStart && buffer.get(lineEnd - 1) == '\r') {
+                lineEnd--;
+            }
+            // Fields are copied through a MAX_LINE_BYTES scratch buffer, so longer lines are rejected too
+            boolean truncated = pastWindow || lineEnd - lineStart > MAX_LINE_BYTES;
+            pos++; // Past the newline
+            result.lines++;
+            
+            if (lineEnd == lineStart || (chunkStart == 0 && result.lines == 1 && startsWith(buffer, lineStart, lineEnd, "name,"))) {
+                continue; // Blank line or header
+            }
+            result.rows++;
+            String error = null;
+            if (truncated) {
+                error = "line longer than " + MAX_LINE_BYTES + " bytes";
+            } else if (commas != 1) {
+                error = "expected 2 fields, found " + (commas + 1);
+            } else if (comma == lineStart || comma == lineEnd - 1) {
+                error = "empty " + (comma == lineStart ? "name" : "studentId");
+            } else if (!isValidId(buffer, comma + 1, lineEnd)) {
+                error = "studentId must be letters, digits or '-'";
+            }
+            if (error != null) {
+                result.errorCount++;
+                if (result.errorLines.size() < MAX_REPORTED_ERRORS) {
+                    result.errorLines.add(result.lines);
+                    result.errorMessages.add(error);
+                }
+                if (pastWindow) {
+                    break; // The rest of this line is past the mapped window
+                }
+                continue;
+            }
+            
+            batch.add(new Student(decode(buffer, lineStart, comma, scratch), decode(buffer, comma + 1, lineEnd, scratch)));
+            if (batch.size() == BATCH_SIZE) {
+                flush(batch, registry, result, progress);
+            }
+        }
+        flush(batch, registry, result, progress);
+        progress.addAndGet(result.errorCount);
+        return result;
+    }
+    
+    private static void flush(List<Student> batch, StudentRegistry registry, ChunkResult result, AtomicLong progress) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        int duplicates = registry.addAll(batch);
+        result.duplicates += duplicates;
+        result.imported += batch.size() - duplicates;
+        progress.addAndGet(batch.size());
+        batch.clear();
+    }
+    
+    private static boolean startsWith(MappedByteBuffer buffer, int from, int to, String prefix) {
+        if (to - from < prefix.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (Character.toLowerCase(buffer.get(from + i)) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private static boolean isValidId(MappedByteBuffer buffer, int from, int to) {
+        for (int i = from; i < to; i++) {
+            byte b = buffer.get(i);
+            boolean ok = (b >= '0' && b <= '9') || (b >= 'A' && b <= 'Z') || (b >= 'a' && b <= 'z') || b == '-';
+            if (!ok) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private static String decode(MappedByteBuffer buffer, int from, int to, byte[] scratch) {
+        buffer.get(from, scratch, 0, to - from);
+        return new String(scratch, 0, to - from, StandardCharsets.UTF_8);
+    }
+    
+    public static void runBenchmark() {
+        System.out.println("\n=== BULK CSV IMPORT ===");
+        int count = 1_000_000;
+        Path file;
+        try {
+            file = Files.createTempFile("students", ".csv");
+            try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                writer.write("name,studentId\n");
+                for (int i = 0; i < count; i++) {
+                    if (i == 1_234) {
+                        writer.write("Broken row without id\n");
+                    } else if (i == 750_000) {
+                        writer.write("Eve,S#15\n");
+                    } else {
+                        writer.write("Student-" + (i * 7919L % count) + ",S" + i + "\n");
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("Could not write sample CSV: " + e.getMessage());
+            return;
+        }
+        
+        try {
+            int cores = Runtime.getRuntime().availableProcessors();
+            int threads = 1;
+            while (true) {
+                StudentRegistry registry = new StudentRegistry();
+                ImportReport report = new StudentCsvImporter(threads).importFile(file, registry);
+                System.out.printf("%d thread(s): %s%n", threads, report);
+                if (threads == cores) {
+                    for (String error : report.errors) {
+                        System.out.println("  " + error);
+                    }
+                    break;
+                }
+                threads = Math.min(threads * 2, cores);
+            }
+        } catch (IOException e) {
+            System.out.println("Import failed: " + e.getMessage());
+        } finally {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException ignored) {
+                // Temp file; nothing else to do
+            }
+        }
+    }
+}
+
+// ===== CAPACITY-LIMITED ENROLLMENT =====
+// Seats are handed out by CAS on one counter per course, so a burst of reservers for the same course
+// never waits on a lock. A reservation is a time-limited hold that must be confirmed. When a seat comes
+// back - released, or a hold expired - it goes to the head of the waitlist before it is counted as free.
+class CourseSeats {
+    enum Outcome { RESERVED, WAITLISTED, ALREADY_RESERVED }
+    enum Status { NONE, HELD, CONFIRMED, WAITLISTED }
+    
+    private static final int HELD = 0;
+    private static final int CONFIRMED = 1;
+    private static final int RELEASED = 2;
+    private static final int EXPIRED = 3;
+    
+    private static final class Hold {
+        final String studentId;
+        final long expiresAt;
+        final AtomicInteger state = new AtomicInteger(HELD); // Each hold ends exactly once, by CAS
+        
+        Hold(String studentId, long expiresAt) {
+            this.studentId = studentId;
+            this.expiresAt = expiresAt;
+        }
+        
+        boolean isLive() {
+            int s = state.get();
+            return s == HELD || s == CONFIRMED;
+        }
+    }
+    
+    private final String code;
+    private final int capacity;
+    private final long holdNanos;
+    private final AtomicInteger available;
+    private final ConcurrentHashMap<String, Hold> holds = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<String> waitlist = new ConcurrentLinkedQueue<>();
+    private final Set<String> waitlisted = ConcurrentHashMap.newKeySet();
+    
+    public CourseSeats(String code, int capacity, long holdMillis) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacity must not be negative: " + capacity);
+        }
+        if (holdMillis <= 0) {
+            throw new IllegalArgumentException("Hold time must be positive: " + holdMillis + " ms");
+        }
+        this.code = code;
+        this.capacity = capacity;
+        this.holdNanos = TimeUnit.MILLISECONDS.toNanos(holdMillis);
+        this.available = new AtomicInteger(capacity);
+    }
+    
+    public Outcome reserve(String studentId) {
+        Hold existing = holds.get(studentId);
+        if ((existing != null && existing.isLive()) || waitlisted.contains(studentId)) {
+            return Outcome.ALREADY_RESERVED;
+        }
+        // Skip the counter while others are queued, so newcomers do not jump the waitlist
+        while (waitlist.isEmpty()) {
+            int seats = available.get();
+            if (seats <= 0) {
+                break;
+            }
+            if (available.compareAndSet(seats, seats - 1)) {
+                if (grantHold(studentId)) {
+                    return Outcome.RESERVED;
+                }
+                returnSeat(); // Lost a race with our own concurrent reservation
+                return Outcome.ALREADY_RESERVED;
+            }
+        }
+        if (waitlisted.add(studentId)) {
+            waitlist.add(studentId);
+        }
+        promoteWaiting(); // A seat may have come back between our check and joining the queue
+        return Outcome.WAITLISTED;
+    }
+    
+    public boolean confirm(String studentId) {
+        Hold hold = holds.get(studentId);
+        if (hold == null) {
+            return false;
+        }
+        if (System.nanoTime() - hold.expiresAt > 0) {
+            expire(hold);
+            return false;
+        }
+        return hold.state.compareAndSet(HELD, CONFIRMED);
+    }
+    
+    // Gives up a hold, a confirmed seat or a place on the waitlist
+    public boolean release(String studentId) {
+        Hold hold = holds.get(studentId);
+        if (hold != null) {
+            int s = hold.state.get();
+            if ((s == HELD || s == CONFIRMED) && hold.state.compareAndSet(s, RELEASED)) {
+                holds.remove(studentId, hold);
+                returnSeat();
+                return true;
+            }
+        }
+        // The set decides who is still waiting; promoteWaiting skips queue entries no longer in it
+        if (waitlisted.remove(studentId)) {
+            waitlist.remove(studentId);
+            return true;
+        }
+        return false;
+    }
+    
+    public Status status(String studentId) {
+        Hold hold = holds.get(studentId);
+        if (hold != null) {
+            switch (hold.state.get()) {
+                case HELD:
+                    return Status.HELD;
+                case CONFIRMED:
+                    return Status.CONFIRMED;
+                default:
+                    break;
+            }
+        }
+        return waitlisted.contains(studentId) ? Status.WAITLISTED : Status.NONE;
+    }
+    
+    // Called periodically from the background expiry task
+    void expireHolds() {
+        long now = System.nanoTime();
+        for (Hold hold : holds.values()) {
+            if (hold.state.get() == HELD && now - hold.expiresAt > 0) {
+                expire(hold);
+            }
+        }
+    }
+    
+    private void expire(Hold hold) {
+        if (hold.state.compareAndSet(HELD, EXPIRED)) {
+            holds.remove(hold.studentId, hold);
+            returnSeat();
+        }
+    }
+    
+    private boolean grantHold(String studentId) {
+        Hold hold = new Hold(studentId, System.nanoTime() + holdNanos);
+        while (true) {
+            Hold previous = holds.putIfAbsent(studentId, hold);
+            if (previous == null) {
+                return true;
+            }
+            if (previous.isLive()) {
+                return false;
+            }
+            if (holds.replace(studentId, previous, hold)) { // Ended hold not yet cleaned up
+                return true;
+            }
+        }
+    }
+    
+    private void returnSeat() {
+        available.incrementAndGet();
+        promoteWaiting();
+    }
+    
+    // Both sides run this after changing their half (seat freed / student queued), so neither is missed
+    private void promoteWaiting() {
+        while (!waitlist.isEmpty()) {
+            int seats = available.get();
+            if (seats <= 0) {
+                return;
+            }
+            if (!available.compareAndSet(seats, seats - 1)) {
+                continue;
+            }
+            String next = waitlist.poll();
+            if (next == null) {
+                available.incrementAndGet();
+                continue; // Recheck: someone may have queued after the poll
+            }
+            if (!waitlisted.remove(next) || !grantHold(next)) {
+                available.incrementAndGet(); // Left the waitlist already, or holds a seat
+            }
+        }
+    }
+    
+    public String getCode() {
+        return code;
+    }
+    
+    public int getCapacity() {
+        return capacity;
+    }
+    
+    public int availableSeats() {
+        return available.get();
+    }
+    
+    public int confirmedSeats() {
+        int confirmed = 0;
+        for (Hold hold : holds.values()) {
+            if (hold.state.get() == CONFIRMED) {
+                confirmed++;
+            }
+        }
+        return confirmed;
+    }
+    
+    public int waitlistLength() {
+        return waitlisted.size();
+    }
+    
+    public static void runBenchmark() {
+        System.out.println("\n=== SEAT RESERVATION BENCHMARK ===");
+        int reservers = 10_000;
+        int threads = 64;
+        int capacity = 500;
+        
+        // Both variants run the same workload: most confirm, some release and some abandon their hold
+        // to let it expire, with the expiry sweep running in the background
+        ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor();
+        LockedSeats locked = new LockedSeats(capacity, 100);
+        sweeper.scheduleWithFixedDelay(locked::expireHolds, 25, 25, TimeUnit.MILLISECONDS);
+        long syncNanos = runReservers(reservers, threads, studentId -> {
+            int n = Integer.parseInt(studentId.substring(1));
+            if (locked.reserve(studentId) == Outcome.RESERVED) {
+                if (n % 10 == 0) {
+                    locked.release(studentId);
+                } else if (n % 10 != 1) {
+                    locked.confirm(studentId);
+                }
+            }
+        });
+        sweeper.shutdownNow();
+        System.out.printf("Synchronized:    %,d reservers on %d threads in %.1f ms%n",
+                          reservers, threads, syncNanos / 1e6);
+        
+        try (University university = new University("Benchmark University")) {
+            CourseSeats course = university.openCourse("CS101", capacity, 100);
+            long casNanos = runReservers(reservers, threads, studentId -> {
+                int n = Integer.parseInt(studentId.substring(1));
+                if (course.reserve(studentId) == Outcome.RESERVED) {
+                    if (n % 10 == 0) {
+                        course.release(studentId);
+                    } else if (n % 10 != 1) {
+                        course.confirm(studentId);
+                    }
+                }
+            });
+            System.out.printf("Lock-free CAS:   %,d reservers on %d threads in %.1f ms%n",
+                              reservers, threads, casNanos / 1e6);
+            
+            // Waitlisted students promoted into released or expired seats confirm them
+            int rounds = 0;
+            while (course.confirmedSeats() < capacity && rounds < 20) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(150));
+                for (int i = 0; i < reservers; i++) {
+                    if (course.status("R" + i) == Status.HELD && i % 10 != 1) {
+                        course.confirm("R" + i);
+                    }
+                }
+                rounds++;
+            }
+            System.out.printf("CS101 after %d promotion round(s): %d/%d confirmed, %d free, %,d still waitlisted%n",
+                              rounds, course.confirmedSeats(), capacity, course.availableSeats(), course.waitlistLength());
+        }
+    }
+    
+    // Benchmark baseline: the same reserve/confirm/release/expiry rules with every operation under one lock
+    private static final class LockedSeats {
+        private final long holdNanos;
+        private int available;
+        private final Map<String, Long> heldUntil = new HashMap<>(); // Unconfirmed holds
+        private final Set<String> confirmed = new HashSet<>();
+        private final LinkedHashSet<String> waitlist = new LinkedHashSet<>(); // Queue order, O(1) membership
+        
+        LockedSeats(int capacity, long holdMillis) {
+            this.available = capacity;
+            this.holdNanos = TimeUnit.MILLISECONDS.toNanos(holdMillis);
+        }
+        
+        synchronized Outcome reserve(String studentId) {
+            if (heldUntil.containsKey(studentId) || confirmed.contains(studentId) || waitlist.contains(studentId)) {
+                return Outcome.ALREADY_RESERVED;
+            }
+            if (available > 0 && waitlist.isEmpty()) {
+                available--;
+                heldUntil.put(studentId, System.nanoTime() + holdNanos);
+                return Outcome.RESERVED;
+            }
+            waitlist.add(studentId);
+            return Outcome.WAITLISTED;
+        }
+        
+        synchronized boolean confirm(String studentId) {
+            Long expiresAt = heldUntil.get(studentId);
+            if (expiresAt == null) {
+                return false;
+            }
+            heldUntil.remove(studentId);
+            if (System.nanoTime() - expiresAt > 0) {
+                returnSeat();
+                return false;
+            }
+            return confirmed.add(studentId);
+        }
+        
+        synchronized boolean release(String studentId) {
+            if (heldUntil.remove(studentId) != null || confirmed.remove(studentId)) {
+                returnSeat();
+                return true;
+            }
+            return waitlist.remove(studentId);
+        }
+        
+        synchronized void expireHolds() {
+            long now = System.nanoTime();
+            int expired = 0;
+            for (Iterator<Long> it = heldUntil.values().iterator(); it.hasNext(); ) {
+                if (now - it.next() > 0) {
+                    it.remove();
+                    expired++;
+                }
+            }
+            for (int i = 0; i < expired; i++) {
+                returnSeat();
+            }
+        }
+        
+        private void returnSeat() {
+            Iterator<String> queue = waitlist.iterator();
+            if (!queue.hasNext()) {
+                available++;
+                return;
+            }
+            String next = queue.next();
+            queue.remove();
+            heldUntil.put(next, System.nanoTime() + holdNanos);
+        }
+    }
+    
+    // Releases all reserver threads at once; each works through its share of student ids
+    private static long runReservers(int reservers, int threads, Consumer<String> reserver) {
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            int first = t;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = first; i < reservers; i += threads) {
+                        reserver.accept("R" + i);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+            thread.start();
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        try {
+            done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return System.nanoTime() - begin;
+    }
+}
+
+class University implements AutoCloseable {
+    private static final int PAGE_SIZE = 100;
+    
+    // One daemon thread expires unconfirmed holds for every university's courses
+    private static final ScheduledExecutorService HOLD_EXPIRY = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "hold-expiry");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
     private String name;
-    private List<Student> students; // Aggregation: Students can exist without the university
+    private StudentRegistry students; // Aggregation: Students can exist without the university
+    private final ConcurrentHashMap<String, CourseSeats> courses = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, ScheduledFuture<?>> expiryTasks = new ConcurrentHashMap<>();
     
     public University(String name) {
         this.name = name;
-        this.students = new ArrayList<>();
+        this.students = new StudentRegistry();
     }
     
     public void addStudent(Student student) {
-        students.add(student);
-        System.out.println(student + " added to " + name);
+        if (students.add(student)) {
+            System.out.println(student + " added to " + name);
+        } else {
+            System.out.println(student + " is already enrolled at " + name);
+        }
     }
     
+    // Students are identified by studentId
     public void removeStudent(Student student) {
-        students.remove(student);
-        System.out.println(student + " removed from " + name);
+        if (students.remove(student.getStudentId())) {
+            System.out.println(student + " removed from " + name);
+        }
+    }
+    
+    // Bulk path for term onboarding: one summary line instead of a line per student
+    public StudentCsvImporter.ImportReport importStudents(Path csvFile) throws IOException {
+        StudentCsvImporter.ImportReport report =
+            new StudentCsvImporter(Runtime.getRuntime().availableProcessors()).importFile(csvFile, students);
+        System.out.println("Imported into " + name + ": " + report);
+        for (String error : report.errors) {
+            System.out.println("  " + error);
+        }
+        return report;
+    }
+    
+    // Capacity and hold time are validated by CourseSeats before anything is registered or scheduled
+    public CourseSeats openCourse(String code, int capacity, long holdMillis) {
+        CourseSeats course = new CourseSeats(code, capacity, holdMillis);
+        if (courses.putIfAbsent(code, course) != null) {
+            throw new IllegalArgumentException("Course " + code + " is already open");
+        }
+        long period = Math.max(1, holdMillis / 4);
+        expiryTasks.put(code, HOLD_EXPIRY.scheduleWithFixedDelay(course::expireHolds, period, period, TimeUnit.MILLISECONDS));
+        return course;
+    }
+    
+    // Stops the course's expiry sweep; otherwise the shared scheduler keeps it (and the course) alive
+    public boolean closeCourse(String code) {
+        ScheduledFuture<?> expiry = expiryTasks.remove(code);
+        if (expiry != null) {
+            expiry.cancel(false);
+        }
+        return courses.remove(code) != null;
+    }
+    
+    @Override
+    public void close() {
+        for (String code : courses.keySet()) {
+            closeCourse(code);
+        }
+    }
+    
+    public CourseSeats.Outcome reserveSeat(String courseCode, Student student) {
+        return course(courseCode).reserve(student.getStudentId());
+    }
+    
+    public boolean confirmSeat(String courseCode, Student student) {
+        return course(courseCode).confirm(student.getStudentId());
+    }
+    
+    public boolean releaseSeat(String courseCode, Student student) {
+        return course(courseCode).release(student.getStudentId());
+    }
+    
+    private CourseSeats course(String code) {
+        CourseSeats course = courses.get(code);
+        if (course == null) {
+            throw new IllegalArgumentException("No course " + code);
+        }
+        return course;
+    }
+    
+    public Student findStudent(String studentId) {
+        return students.get(studentId);
+    }
+    
+    public List<Student> findStudentsByNamePrefix(String prefix) {
+        return students.findByNamePrefix(prefix);
+    }
+    
+    // Pages over a snapshot, so concurrent enrollments do not show up halfway through the listing
+    public StudentRegistry.Snapshot openSnapshot() {
+        return students.snapshot();
     }
     
     public void listStudents() {
         System.out.println("\nStudents at " + name + ":");
-        for (Student student : students) {
-            System.out.println("- " + student);
+        try (StudentRegistry.Snapshot snapshot = students.snapshot()) {
+            while (snapshot.hasMore()) {
+                for (Student student : snapshot.nextPage(PAGE_SIZE)) {
+                    System.out.println("- " + student);
+                }
+            }
         }
     }
 }
@@ -166,11 +1872,38 @@ public class Group2_InheritanceCompositionAggregation {
         cat.eat();
         cat.meow();
         
+        System.out.println("\n=== ENTITY-COMPONENT DEMO ===");
+        try (AnimalWorld world = new AnimalWorld(1_000, 2)) {
+            int rex = world.spawnDog("Rex", 4, "Beagle");
+            int tom = world.spawnCat("Tom", 6, false);
+            for (int i = 0; i < 998; i++) {
+                world.spawnAnimal("Critter-" + i, i % 8);
+            }
+            for (int t = 0; t < AgingSystem.TICKS_PER_YEAR; t++) {
+                world.tick();
+            }
+            System.out.println("After " + world.currentTick() + " ticks, Rex is " + world.stateOf(rex)
+                               + " and Tom is " + world.stateOf(tom));
+            // Classic object views of single entities
+            world.materialize(rex).displayInfo();
+            world.materialize(tom).eat();
+        }
+        AnimalWorld.runBenchmark();
+        DictionaryFootprint.runReport();
+        
         System.out.println("\n=== COMPOSITION DEMO ===");
         House house = new House("123 Main St");
         house.describeHouse();
         // If house is destroyed, rooms are destroyed too
         
+        HousePortfolio portfolio = new HousePortfolio.Builder()
+            .addStandardHouse("123 Main St")
+            .startHouse("9 Elm Ave").addRoom("Living", 220).addRoom("Office", 90)
+            .build();
+        portfolio.describeHouse(0); // Same output as house.describeHouse()
+        portfolio.describeHouse(1);
+        HousePortfolio.runBenchmark();
+        
         System.out.println("\n=== AGGREGATION DEMO ===");
         Student student1 = new Student("Alice", "S001");
         Student student2 = new Student("Bob", "S002");
@@ -189,5 +1922,17 @@ public class Group2_InheritanceCompositionAggregation {
         university.listStudents();
         
         System.out.println("\n" + student2 + " still exists independently");
+        System.out.println("Lookup S003: " + university.findStudent("S003"));
+        System.out.println("Names starting with \"Al\": " + university.findStudentsByNamePrefix("Al"));
+        StudentRegistry.runBenchmark();
+        StudentCsvImporter.runBenchmark();
+        
+        System.out.println("\n=== SEAT RESERVATION DEMO ===");
+        university.openCourse("OOP201", 1, 5_000);
+        System.out.println("Alice reserves OOP201: " + university.reserveSeat("OOP201", student1));
+        System.out.println("Charlie reserves OOP201: " + university.reserveSeat("OOP201", student3));
+        System.out.println("Alice releases: " + university.releaseSeat("OOP201", student1));
+        System.out.println("Charlie confirms promoted seat: " + university.confirmSeat("OOP201", student3));
+        CourseSeats.runBenchmark();
     }
 }
\ No newline at end of file
@@ -1,3 +1,50 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// ===== FIXED-POINT MONEY (long cents, no double arithmetic) =====
+// Only the operations this file uses
+final class Money {
+    public static final Money ZERO = new Money(0);
+    
+    private final long cents;
+    
+    private Money(long cents) {
+        this.cents = cents;
+    }
+    
+    public static Money ofCents(long cents) {
+        return cents == 0 ? ZERO : new Money(cents);
+    }
+    
+    // Overflow throws ArithmeticException instead of silently wrapping
+    public Money add(Money other) {
+        return ofCents(Math.addExact(cents, other.cents));
+    }
+    
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof Money && ((Money) other).cents == cents;
+    }
+    
+    @Override
+    public int hashCode() {
+        return Long.hashCode(cents);
+    }
+    
+    // Formats as "1234.56" (no currency sign, matching how amounts are printed after "$")
+    @Override
+    public String toString() {
+        StringBuilder out = new StringBuilder(24);
+        if (cents < 0) {
+            out.append('-');
+        }
+        long units = Math.abs(cents / 100);
+        int fraction = (int) Math.abs(cents % 100);
+        return out.append(units).append('.').append((char) ('0' + fraction / 10)).append((char) ('0' + fraction % 10)).toString();
+    }
+}
+
 // ===== OVERLOADING VS OVERRIDING DEMO =====
 class Calculator {
     // Method Overloading - same method name, different parameters
@@ -40,15 +87,273 @@ class AdvancedCalculator extends Calculator {
         return Math.round(result * 100.0) / 100.0;
     }
     
-    // New method specific to AdvancedCalculator
+    // Overload for exact money arithmetic: cents are added as longs, overflow throws
+    public Money add(Money a, Money b) {
+        System.out.println("AdvancedCalculator adding money amounts");
+        return a.add(b);
+    }
+    
+    // New methods specific to AdvancedCalculator
+    // Whole-array sums print one line like the other overloads; the slice overloads are silent for bulk use.
+    // Above PARALLEL_THRESHOLD elements a slice is split into fork-join subtasks on the common pool.
+    static final int PARALLEL_THRESHOLD = 1 << 20;
+    
+    // Keeps its int return type; throws ArithmeticException instead of wrapping when the total does not fit
     public int add(int[] numbers) {
         System.out.println("Adding array of integers");
+        return Math.toIntExact(add(numbers, 0, numbers.length));
+    }
+    
+    // Accumulates in a long, which cannot overflow for any int[] (at most 2^31 elements of at most 2^31)
+    public long add(int[] numbers, int from, int to) {
+        checkSlice(numbers.length, from, to);
+        if (to - from > PARALLEL_THRESHOLD) {
+            return ForkJoinPool.commonPool().invoke(new IntSumTask(numbers, from, to));
+        }
+        return sumInts(numbers, from, to);
+    }
+    
+    // Throws ArithmeticException if the exact total does not fit in a long
+    public long add(long[] numbers) {
+        System.out.println("Adding array of longs");
+        return add(numbers, 0, numbers.length);
+    }
+    
+    public long add(long[] numbers, int from, int to) {
+        checkSlice(numbers.length, from, to);
+        long[] total = (to - from > PARALLEL_THRESHOLD)
+            ? ForkJoinPool.commonPool().invoke(new LongSumTask(numbers, from, to))
+            : sumLongs(numbers, from, to);
+        if (total[1] != (total[0] >> 63)) {
+            throw new ArithmeticException("long overflow summing " + (to - from) + " elements");
+        }
+        return total[0];
+    }
+    
+    // Neumaier-compensated, so small addends are not lost next to large ones
+    public double add(double[] numbers) {
+        System.out.println("Adding array of doubles");
+        return add(numbers, 0, numbers.length);
+    }
+    
+    public double add(double[] numbers, int from, int to) {
+        checkSlice(numbers.length, from, to);
+        double[] total = (to - from > PARALLEL_THRESHOLD)
+            ? ForkJoinPool.commonPool().invoke(new DoubleSumTask(numbers, from, to))
+            : sumDoubles(numbers, from, to);
+        return total[0] + total[1];
+    }
+    
+    private static void checkSlice(int length, int from, int to) {
+        if (from < 0 || to > length || from > to) {
+            throw new IndexOutOfBoundsException("Slice [" + from + ", " + to + ") of array length " + length);
+        }
+    }
+    
+    // Four independent accumulators break the loop-carried dependency so the JIT can overlap the adds
+    private static long sumInts(int[] numbers, int from, int to) {
+        long s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = from;
+        for (; i + 3 < to; i += 4) {
+            s0 += numbers[i];
+            s1 += numbers[i + 1];
+            s2 += numbers[i + 2];
+            s3 += numbers[i + 3];
+        }
+        for (; i < to; i++) {
+            s0 += numbers[i];
+        }
+        return s0 + s1 + s2 + s3;
+    }
+    
+    // Exact 128-bit total as {low, high}: the result is independent of summation order, so the
+    // sequential and parallel paths agree on whether the total overflows
+    private static long[] sumLongs(long[] numbers, int from, int to) {
+        long low = 0;
+        long high = 0;
+        for (int i = from; i < to; i++) {
+            long x = numbers[i];
+            long sum = low + x;
+            high += (x >> 63) + (Long.compareUnsigned(sum, low) < 0 ? 1 : 0);
+            low = sum;
+        }
+        return new long[] {low, high};
+    }
+    
+    private static long[] addWide(long[] a, long[] b) {
+        long low = a[0] + b[0];
+        long carry = Long.compareUnsigned(low, a[0]) < 0 ? 1 : 0;
+        return new long[] {low, a[1] + b[1] + carry};
+    }
+    
+    // Returns {sum, compensation}
+    private static double[] sumDoubles(double[] numbers, int from, int to) {
+        double sum = 0;
+        double compensation = 0;
+        for (int i = from; i < to; i++) {
+            double x = numbers[i];
+            double t = sum + x;
+            // Once the total is infinite or NaN it is final; compensating would compute inf - inf = NaN
+            if (Double.isFinite(t)) {
+                if (Math.abs(sum) >= Math.abs(x)) {
+                    compensation += (sum - t) + x;
+                } else {
+                    compensation += (x - t) + sum;
+                }
+            }
+            sum = t;
+        }
+        return new double[] {sum, compensation};
+    }
+    
+    private static double[] addCompensated(double[] a, double[] b) {
+        double[] total = sumDoubles(new double[] {a[0], b[0]}, 0, 2);
+        total[1] += a[1] + b[1];
+        return total;
+    }
+    
+    private static class IntSumTask extends RecursiveTask<Long> {
+        private static final long serialVersionUID = 1L;
+        
+        private final int[] numbers;
+        private final int from;
+        private final int to;
+        
+        IntSumTask(int[] numbers, int from, int to) {
+            this.numbers = numbers;
+            this.from = from;
+            this.to = to;
+        }
+        
+        @Override
+        protected Long compute() {
+            if (to - from <= PARALLEL_THRESHOLD) {
+                return sumInts(numbers, from, to);
+            }
+            int middle = (from + to) >>> 1;
+            IntSumTask left = new IntSumTask(numbers, from, middle);
+            left.fork();
+            long right = new IntSumTask(numbers, middle, to).compute();
+            return left.join() + right;
+        }
+    }
+    
+    private static class LongSumTask extends RecursiveTask<long[]> {
+        private static final long serialVersionUID = 1L;
+        
+        private final long[] numbers;
+        private final int from;
+        private final int to;
+        
+        LongSumTask(long[] numbers, int from, int to) {
+            this.numbers = numbers;
+            this.from = from;
+            this.to = to;
+        }
+        
+        @Override
+        protected long[] compute() {
+            if (to - from <= PARALLEL_THRESHOLD) {
+                return sumLongs(numbers, from, to);
+            }
+            int middle = (from + to) >>> 1;
+            LongSumTask left = new LongSumTask(numbers, from, middle);
+            left.fork();
+            long[] right = new LongSumTask(numbers, middle, to).compute();
+            return addWide(left.join(), right);
+        }
+    }
+    
+    private static class DoubleSumTask extends RecursiveTask<double[]> {
+        private static final long serialVersionUID = 1L;
+        
+        private final double[] numbers;
+        private final int from;
+        private final int to;
+        
+        DoubleSumTask(double[] numbers, int from, int to) {
+            this.numbers = numbers;
+            this.from = from;
+            this.to = to;
+        }
+        
+        @Override
+        protected double[] compute() {
+            if (to - from <= PARALLEL_THRESHOLD) {
+                return sumDoubles(numbers, from, to);
+            }
+            int middle = (from + to) >>> 1;
+            DoubleSumTask left = new DoubleSumTask(numbers, from, middle);
+            left.fork();
+            double[] right = new DoubleSumTask(numbers, middle, to).compute();
+            return addCompensated(left.join(), right);
+        }
+    }
+    
+    // The original add(int[]) loop, kept for comparison
+    private static int legacySum(int[] numbers) {
         int sum = 0;
         for (int num : numbers) {
             sum += num;
         }
         return sum;
     }
+    
+    public static void runBenchmark() {
+        System.out.println("\n=== ARRAY SUM BENCHMARK ===");
+        int count = 50_000_000;
+        AdvancedCalculator calculator = new AdvancedCalculator();
+        
+        int[] ints = new int[count];
+        for (int i = 0; i < count; i++) {
+            ints[i] = Integer.MAX_VALUE - i % 1_000;
+        }
+        int legacy = 0;
+        long bestLegacy = Long.MAX_VALUE;
+        long bestNew = Long.MAX_VALUE;
+        long sum = 0;
+        for (int run = 0; run < 5; run++) {
+            long start = System.nanoTime();
+            legacy = legacySum(ints);
+            bestLegacy = Math.min(bestLegacy, System.nanoTime() - start);
+            start = System.nanoTime();
+            sum = calculator.add(ints, 0, ints.length);
+            bestNew = Math.min(bestNew, System.nanoTime() - start);
+        }
+        System.out.printf("int[%,d]: old loop %d ms = %,d (overflowed), new %d ms = %,d (%d thread(s))%n",
+                          count, bestLegacy / 1_000_000, legacy, bestNew / 1_000_000, sum,
+                          ForkJoinPool.commonPool().getParallelism());
+        ints = null;
+        
+        long[] longs = new long[count];
+        Arrays.fill(longs, Long.MAX_VALUE / count + 1);
+        try {
+            calculator.add(longs, 0, longs.length);
+            System.out.println("long[]: overflow not detected!");
+        } catch (ArithmeticException e) {
+            System.out.println("long[]: " + e.getMessage());
+        }
+        for (int i = 0; i < count; i++) {
+            longs[i] = (i % 4 < 2) ? Long.MAX_VALUE : -Long.MAX_VALUE; // Running sum overflows every 4 terms
+        }
+        longs[count - 1] += 42;
+        System.out.println("long[]: exact total with cancelling terms = " + calculator.add(longs, 0, longs.length));
+        longs = null;
+        
+        double[] doubles = new double[count];
+        doubles[0] = 1e16;
+        for (int i = 1; i < count; i++) {
+            doubles[i] = 1.0;
+        }
+        double naive = 0;
+        for (double d : doubles) {
+            naive += d;
+        }
+        long start = System.nanoTime();
+        double compensated = calculator.add(doubles, 0, doubles.length);
+        System.out.printf("double[]: naive %.1f, compensated %.1f in %d ms (exact %.1f)%n",
+                          naive, compensated, (System.nanoTime() - start) / 1_000_000, 1e16 + (count - 1));
+    }
 }
 
 // ===== ACCESSORS (GETTERS) AND MUTATORS (SETTERS) DEMO =====
@@ -161,9 +466,13 @@ public class Group3_OverridingOverloadingAccessors {
         
         System.out.println("Advanced: " + advCalc.add(-5, 3));
         System.out.println("Advanced with doubles: " + advCalc.add(5.555, 3.333));
+        System.out.println("Advanced with money: $" + advCalc.add(Money.ofCents(556), Money.ofCents(333)));
         
         int[] numbers = {1, 2, 3, 4, 5};
         System.out.println("Sum of array: " + advCalc.add(numbers));
+        System.out.println("Sum of array slice [1, 4): " + advCalc.add(numbers, 1, 4));
+        System.out.println("Sum of doubles: " + advCalc.add(new double[] {0.1, 0.2, 0.3}));
+        AdvancedCalculator.runBenchmark();
         
         System.out.println("\n=== ACCESSORS AND MUTATORS DEMO ===");
         Person person = new Person("John Doe", 30);
@@ -1,14 +1,56 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.RandomAccess;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+
 // ===== INTERFACE EXAMPLES =====
 interface Drawable {
     void draw();
+    
+    // Appends the drawing description to a caller-supplied buffer (see RenderPipeline).
+    // Shapes that only implement draw() get a generic description.
+    default void drawTo(StringBuilder out) {
+        out.append("Drawing ").append(TypeMetadata.of(getClass()).displayName);
+    }
+    
     default void display() {
-        System.out.println("Displaying " + getClass().getSimpleName());
+        System.out.println("Displaying " + TypeMetadata.of(getClass()).displayName);
     }
 }
 
 interface Resizable {
     void resize(double factor);
     double getSize();
+    
+    // Same as resize(factor) but without printing, for bulk operations
+    void scale(double factor);
 }
 
 interface Colorable {
@@ -17,26 +59,46 @@ interface Colorable {
 }
 
 // ===== POLYMORPHISM THROUGH INTERFACES =====
-class Circle implements Drawable, Resizable, Colorable {
+class Circle implements Drawable, Resizable, Colorable, Positioned {
     private double radius;
     private String color;
+    private double x; // Center
+    private double y;
     
     public Circle(double radius, String color) {
+        this(radius, color, 0, 0);
+    }
+    
+    public Circle(double radius, String color, double x, double y) {
         this.radius = radius;
         this.color = color;
+        this.x = x;
+        this.y = y;
     }
     
     @Override
     public void draw() {
-        System.out.println("Drawing a " + color + " circle with radius " + radius);
+        StringBuilder line = new StringBuilder(64);
+        drawTo(line);
+        System.out.println(line);
+    }
+    
+    @Override
+    public void drawTo(StringBuilder out) {
+        out.append("Drawing a ").append(color).append(" circle with radius ").append(radius);
     }
     
     @Override
     public void resize(double factor) {
-        radius *= factor;
+        scale(factor);
         System.out.println("Circle resized. New radius: " + radius);
     }
     
+    @Override
+    public void scale(double factor) {
+        radius *= factor;
+    }
+    
     @Override
     public double getSize() {
         return Math.PI * radius * radius;
@@ -51,29 +113,75 @@ class Circle implements Drawable, Resizable, Colorable {
     public String getColor() {
         return color;
     }
+    
+    @Override
+    public void moveTo(double x, double y) {
+        this.x = x;
+        this.y = y;
+    }
+    
+    @Override
+    public double getMinX() {
+        return x - radius;
+    }
+    
+    @Override
+    public double getMinY() {
+        return y - radius;
+    }
+    
+    @Override
+    public double getMaxX() {
+        return x + radius;
+    }
+    
+    @Override
+    public double getMaxY() {
+        return y + radius;
+    }
 }
 
-class Rectangle implements Drawable, Resizable, Colorable {
+class Rectangle implements Drawable, Resizable, Colorable, Positioned {
     private double length;
     private double width;
     private String color;
+    private double x; // Bottom-left corner
+    private double y;
     
     public Rectangle(double length, double width, String color) {
+        this(length, width, color, 0, 0);
+    }
+    
+    public Rectangle(double length, double width, String color, double x, double y) {
         this.length = length;
         this.width = width;
         this.color = color;
+        this.x = x;
+        this.y = y;
     }
     
     @Override
     public void draw() {
-        System.out.println("Drawing a " + color + " rectangle " + length + "x" + width);
+        StringBuilder line = new StringBuilder(64);
+        drawTo(line);
+        System.out.println(line);
+    }
+    
+    @Override
+    public void drawTo(StringBuilder out) {
+        out.append("Drawing a ").append(color).append(" rectangle ").append(length).append('x').append(width);
     }
     
     @Override
     public void resize(double factor) {
+        scale(factor);
+        System.out.println("Rectangle resized. New dimensions: " + length + "x" + width);
+    }
+    
+    @Override
+    public void scale(double factor) {
         length *= factor;
         width *= factor;
-        System.out.println("Rectangle resized. New dimensions: " + length + "x" + width);
     }
     
     @Override
@@ -90,6 +198,930 @@ class Rectangle implements Drawable, Resizable, Colorable {
     public String getColor() {
         return color;
     }
+    
+    @Override
+    public void moveTo(double x, double y) {
+        this.x = x;
+        this.y = y;
+    }
+    
+    @Override
+    public double getMinX() {
+        return x;
+    }
+    
+    @Override
+    public double getMinY() {
+        return y;
+    }
+    
+    @Override
+    public double getMaxX() {
+        return x + length;
+    }
+    
+    @Override
+    public double getMaxY() {
+        return y + width;
+    }
+}
+
+// ===== POSITIONED SHAPES AND SPATIAL INDEX =====
+// Optional position for drawables; shapes created without coordinates sit at the origin.
+// Bounds are an axis-aligned box.
+interface Positioned extends Drawable {
+    void moveTo(double x, double y);
+    double getMinX();
+    double getMinY();
+    double getMaxX();
+    double getMaxY();
+}
+
+// Uniform grid: the world is cut into square cells and each shape is listed in every cell its
+// bounds overlap, so window and nearest-neighbour queries only look at nearby cells.
+// Queries keep their state locally, so concurrent queries are safe while nothing modifies the grid.
+class SpatialGrid<T extends Positioned> {
+    private static class Entry<T> {
+        final T shape;
+        int minCellX, minCellY, maxCellX, maxCellY; // Cells this entry is currently registered in
+        
+        Entry(T shape) {
+            this.shape = shape;
+        }
+    }
+    
+    private final double cellSize;
+    private final Map<Long, List<Entry<T>>> cells = new HashMap<>();
+    private final Map<T, Entry<T>> entries = new IdentityHashMap<>();
+    // Occupied cell range, lets kNN stop once it has searched everything
+    private int occupiedMinX = Integer.MAX_VALUE, occupiedMinY = Integer.MAX_VALUE;
+    private int occupiedMaxX = Integer.MIN_VALUE, occupiedMaxY = Integer.MIN_VALUE;
+    
+    // cellSize should be about the size of a typical shape or query window
+    public SpatialGrid(double cellSize) {
+        if (!(cellSize > 0)) {
+            throw new IllegalArgumentException("Cell size must be positive");
+        }
+        this.cellSize = cellSize;
+    }
+    
+    public void bulkLoad(Collection<? extends T> shapes) {
+        for (T shape : shapes) {
+            insert(shape);
+        }
+    }
+    
+    public void insert(T shape) {
+        if (entries.containsKey(shape)) {
+            update(shape);
+            return;
+        }
+        Entry<T> entry = new Entry<>(shape);
+        entries.put(shape, entry);
+        register(entry);
+    }
+    
+    public boolean remove(T shape) {
+        Entry<T> entry = entries.remove(shape);
+        if (entry == null) {
+            return false;
+        }
+        unregister(entry);
+        return true;
+    }
+    
+    // Call after a shape moved or changed size outside the index
+    public void update(T shape) {
+        Entry<T> entry = entries.get(shape);
+        if (entry == null) {
+            throw new IllegalArgumentException("Shape is not indexed");
+        }
+        if (cell(shape.getMinX()) == entry.minCellX && cell(shape.getMinY()) == entry.minCellY
+            && cell(shape.getMaxX()) == entry.maxCellX && cell(shape.getMaxY()) == entry.maxCellY) {
+            return; // Still covers the same cells
+        }
+        unregister(entry);
+        register(entry);
+    }
+    
+    // Resizes through the index so the grid always matches the shape's bounds
+    public void resize(T shape, double factor) {
+        if (!(shape instanceof Resizable)) {
+            throw new IllegalArgumentException(TypeMetadata.of(shape.getClass()).displayName + " is not Resizable");
+        }
+        ((Resizable) shape).resize(factor);
+        update(shape);
+    }
+    
+    public void moveTo(T shape, double x, double y) {
+        shape.moveTo(x, y);
+        update(shape);
+    }
+    
+    public int size() {
+        return entries.size();
+    }
+    
+    // Every shape whose bounds intersect the window
+    public List<T> query(double minX, double minY, double maxX, double maxY) {
+        List<T> result = new ArrayList<>();
+        int fromX = cell(minX);
+        int fromY = cell(minY);
+        for (int cx = fromX; cx <= cell(maxX); cx++) {
+            for (int cy = fromY; cy <= cell(maxY); cy++) {
+                List<Entry<T>> bucket = cells.get(key(cx, cy));
+                if (bucket == null) {
+                    continue;
+                }
+                for (Entry<T> entry : bucket) {
+                    T shape = entry.shape;
+                    // A shape spanning several cells is reported only from the first cell the window shares with it
+                    if (cx == Math.max(entry.minCellX, fromX) && cy == Math.max(entry.minCellY, fromY)
+                        && shape.getMinX() <= maxX && shape.getMaxX() >= minX
+                        && shape.getMinY() <= maxY && shape.getMaxY() >= minY) {
+                        result.add(shape);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+    
+    // The k shapes closest to (x, y), nearest first; distance is measured to the shape's bounds
+    public List<T> nearest(double x, double y, int k) {
+        List<T> result = new ArrayList<>();
+        if (k <= 0 || entries.isEmpty()) {
+            return result;
+        }
+        // Max-heap on distance holding the best k candidates so far
+        PriorityQueue<Object[]> best = new PriorityQueue<>(k + 1,
+            (a, b) -> Double.compare((Double) b[1], (Double) a[1]));
+        // Shapes spanning several cells can turn up in more than one ring
+        Map<Entry<T>, Boolean> seen = new IdentityHashMap<>();
+        long centerX = cell(x);
+        long centerY = cell(y);
+        // Rings before the first one touching the occupied cells are empty; rings after the last are too
+        long firstRing = Math.max(0, Math.max(Math.max(occupiedMinX - centerX, centerX - occupiedMaxX),
+                                              Math.max(occupiedMinY - centerY, centerY - occupiedMaxY)));
+        long lastRing = Math.max(Math.max(Math.abs(centerX - occupiedMinX), Math.abs(occupiedMaxX - centerX)),
+                                 Math.max(Math.abs(centerY - occupiedMinY), Math.abs(occupiedMaxY - centerY)));
+        
+        for (long ring = firstRing; ring <= lastRing; ring++) {
+            // Nothing in this ring or beyond can be closer than this
+            double ringDistance = (ring - 1) * cellSize;
+            if (best.size() == k && ringDistance > (Double) best.peek()[1]) {
+                break;
+            }
+            // Walk only the ring's perimeter, clipped to the occupied cells
+            int fromX = (int) Math.max(centerX - ring, occupiedMinX);
+            int toX = (int) Math.min(centerX + ring, occupiedMaxX);
+            int fromY = (int) Math.max(centerY - ring, occupiedMinY);
+            int toY = (int) Math.min(centerY + ring, occupiedMaxY);
+            for (int cx = fromX; cx <= toX; cx++) {
+                if (centerY - ring >= occupiedMinY) {
+                    visit(cx, (int) (centerY - ring), x, y, k, best, seen);
+                }
+                if (ring > 0 && centerY + ring <= occupiedMaxY) {
+                    visit(cx, (int) (centerY + ring), x, y, k, best, seen);
+                }
+            }
+            // Corners were covered by the rows above
+            int innerFromY = (int) Math.max(centerY - ring + 1, occupiedMinY);
+            int innerToY = (int) Math.min(centerY + ring - 1, occupiedMaxY);
+            for (int cy = innerFromY; cy <= innerToY; cy++) {
+                if (centerX - ring >= occupiedMinX) {
+                    visit((int) (centerX - ring), cy, x, y, k, best, seen);
+                }
+                if (ring > 0 && centerX + ring <= occupiedMaxX) {
+                    visit((int) (centerX + ring), cy, x, y, k, best, seen);
+                }
+            }
+        }
+        
+        while (!best.isEmpty()) {
+            @SuppressWarnings("unchecked")
+            T shape = (T) best.poll()[0];
+            result.add(shape);
+        }
+        Collections.reverse(result);
+        return result;
+    }
+    
+    private void visit(int cx, int cy, double x, double y, int k, PriorityQueue<Object[]> best,
+                       Map<Entry<T>, Boolean> seen) {
+        List<Entry<T>> bucket = cells.get(key(cx, cy));
+        if (bucket == null) {
+            return;
+        }
+        for (Entry<T> entry : bucket) {
+            boolean spansCells = entry.minCellX != entry.maxCellX || entry.minCellY != entry.maxCellY;
+            if (spansCells && seen.put(entry, Boolean.TRUE) != null) {
+                continue;
+            }
+            double distance = distance(entry.shape, x, y);
+            if (best.size() < k) {
+                best.add(new Object[] {entry.shape, distance});
+            } else if (distance < (Double) best.peek()[1]) {
+                best.poll();
+                best.add(new Object[] {entry.shape, distance});
+            }
+        }
+    }
+    
+    static double distance(Positioned shape, double x, double y) {
+        double dx = Math.max(Math.max(shape.getMinX() - x, 0), x - shape.getMaxX());
+        double dy = Math.max(Math.max(shape.getMinY() - y, 0), y - shape.getMaxY());
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+    
+    private void register(Entry<T> entry) {
+        T shape = entry.shape;
+        entry.minCellX = cell(shape.getMinX());
+        entry.minCellY = cell(shape.getMinY());
+        entry.maxCellX = cell(shape.getMaxX());
+        entry.maxCellY = cell(shape.getMaxY());
+        for (int cx = entry.minCellX; cx <= entry.maxCellX; cx++) {
+            for (int cy = entry.minCellY; cy <= entry.maxCellY; cy++) {
+                cells.computeIfAbsent(key(cx, cy), unused -> new ArrayList<>(4)).add(entry);
+            }
+        }
+        occupiedMinX = Math.min(occupiedMinX, entry.minCellX);
+        occupiedMinY = Math.min(occupiedMinY, entry.minCellY);
+        occupiedMaxX = Math.max(occupiedMaxX, entry.maxCellX);
+        occupiedMaxY = Math.max(occupiedMaxY, entry.maxCellY);
+    }
+    
+    private void unregister(Entry<T> entry) {
+        for (int cx = entry.minCellX; cx <= entry.maxCellX; cx++) {
+            for (int cy = entry.minCellY; cy <= entry.maxCellY; cy++) {
+                long key = key(cx, cy);
+                List<Entry<T>> bucket = cells.get(key);
+                if (bucket != null) {
+                    bucket.remove(entry);
+                    if (bucket.isEmpty()) {
+                        cells.remove(key);
+                    }
+                }
+            }
+        }
+    }
+    
+    private int cell(double coordinate) {
+        return (int) Math.floor(coordinate / cellSize);
+    }
+    
+    // Packed cell coordinates times an odd constant: still unique, but Long.hashCode no longer
+    // collapses to cx ^ cy, which would put whole diagonals of cells in one hash bucket
+    private static long key(int cx, int cy) {
+        return (((long) cx << 32) | (cy & 0xFFFFFFFFL)) * 0x9E3779B97F4A7C15L;
+    }
+    
+    public static void runBenchmark() {
+        System.out.println("\n=== SPATIAL INDEX BENCHMARK ===");
+        int count = 1_000_000;
+        double world = 100_000;
+        Random random = new Random(11);
+        List<Positioned> shapes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            double x = random.nextDouble() * world;
+            double y = random.nextDouble() * world;
+            if (random.nextBoolean()) {
+                shapes.add(new Circle(1 + random.nextDouble() * 20, "Red", x, y));
+            } else {
+                shapes.add(new Rectangle(1 + random.nextDouble() * 40, 1 + random.nextDouble() * 40, "Blue", x, y));
+            }
+        }
+        
+        long start = System.nanoTime();
+        SpatialGrid<Positioned> grid = new SpatialGrid<>(100);
+        grid.bulkLoad(shapes);
+        System.out.printf("Bulk load of %,d shapes: %d ms%n", count, (System.nanoTime() - start) / 1_000_000);
+        
+        int queries = 200;
+        double window = 1_000;
+        double[] queryX = new double[queries];
+        double[] queryY = new double[queries];
+        for (int q = 0; q < queries; q++) {
+            queryX[q] = random.nextDouble() * world;
+            queryY[q] = random.nextDouble() * world;
+        }
+        
+        long found = 0;
+        start = System.nanoTime();
+        for (int q = 0; q < queries; q++) {
+            found += grid.query(queryX[q], queryY[q], queryX[q] + window, queryY[q] + window).size();
+        }
+        long gridNanos = System.nanoTime() - start;
+        
+        long scanned = 0;
+        start = System.nanoTime();
+        for (int q = 0; q < queries; q++) {
+            double x = queryX[q];
+            double y = queryY[q];
+            for (Positioned shape : shapes) {
+                if (shape.getMinX() <= x + window && shape.getMaxX() >= x
+                    && shape.getMinY() <= y + window && shape.getMaxY() >= y) {
+                    scanned++;
+                }
+            }
+        }
+        long scanNanos = System.nanoTime() - start;
+        System.out.printf("Window query: grid %.1f us/query vs linear scan %.1f us/query (%d / %d hits)%n",
+                          gridNanos / 1000.0 / queries, scanNanos / 1000.0 / queries, found, scanned);
+        
+        double tenthDistance = 0;
+        start = System.nanoTime();
+        for (int q = 0; q < queries; q++) {
+            List<Positioned> neighbours = grid.nearest(queryX[q], queryY[q], 10);
+            tenthDistance += distance(neighbours.get(neighbours.size() - 1), queryX[q], queryY[q]);
+        }
+        long knnNanos = System.nanoTime() - start;
+        
+        int mismatches = 0;
+        
+        start = System.nanoTime();
+        for (int q = 0; q < queries; q++) {
+            double nearest = Double.MAX_VALUE;
+            for (Positioned shape : shapes) {
+                nearest = Math.min(nearest, distance(shape, queryX[q], queryY[q]));
+            }
+            if (Math.abs(nearest - distance(grid.nearest(queryX[q], queryY[q], 1).get(0), queryX[q], queryY[q])) > 1e-9) {
+                mismatches++;
+            }
+        }
+        long knnScanNanos = System.nanoTime() - start;
+        System.out.printf("Nearest query: grid 10-NN %.1f us/query (avg 10th distance %.1f) vs linear 1-NN scan %.1f us/query (%d mismatches)%n",
+                          knnNanos / 1000.0 / queries, tenthDistance / queries, knnScanNanos / 1000.0 / queries, mismatches);
+    }
+}
+
+// ===== SHAPE REGISTRY WITH INCREMENTAL AREA AGGREGATES =====
+// Immutable summary published after every change, so readers never scan or lock
+class AreaTotals {
+    final int count;
+    final double total;
+    final double min; // NaN when the registry is empty
+    final double max;
+    
+    AreaTotals(int count, double total, double min, double max) {
+        this.count = count;
+        this.total = total;
+        this.min = min;
+        this.max = max;
+    }
+    
+    @Override
+    public String toString() {
+        return "count=" + count + ", total=" + total + ", min=" + min + ", max=" + max;
+    }
+}
+
+// Keeps total, min, max and per-color area current as shapes change. Changes must go through the
+// registry (add/remove/resize/setColor) so it can apply the area delta instead of recomputing.
+// Sum and per-color totals update in O(1); min/max use a sorted multiset of areas (O(log n)).
+class ShapeRegistry {
+    private static class ColorTotal {
+        double area;
+        int count; // The area is reset at zero, whatever floating-point residue it holds
+    }
+    
+    private static class Tracked {
+        double area;
+        String color; // Null for shapes without a colour
+        
+        Tracked(double area, String color) {
+            this.area = area;
+            this.color = color;
+        }
+    }
+    
+    private final Object writeLock = new Object();
+    private final Map<Resizable, Tracked> shapes = new IdentityHashMap<>();  // Guarded by writeLock
+    private final TreeMap<Double, Integer> areaCounts = new TreeMap<>();      // Guarded by writeLock
+    private double total;                                                    // Guarded by writeLock
+    private volatile AreaTotals totals = new AreaTotals(0, 0, Double.NaN, Double.NaN);
+    // Colour totals are updated in place; writers hold colorLock's write lock for the whole change,
+    // so a reader validating its optimistic stamp never sees half of a recolour
+    private final StampedLock colorLock = new StampedLock();
+    private final ConcurrentHashMap<String, ColorTotal> colorTotals = new ConcurrentHashMap<>();
+    private final ColorTotal uncolored = new ColorTotal(); // Kept apart so no colour name can collide with it
+    
+    public boolean add(Resizable shape) {
+        synchronized (writeLock) {
+            if (shapes.containsKey(shape)) {
+                return false;
+            }
+            Tracked tracked = new Tracked(shape.getSize(), colorOf(shape));
+            shapes.put(shape, tracked);
+            long stamp = colorLock.writeLock();
+            try {
+                include(tracked.area, tracked.color);
+            } finally {
+                colorLock.unlockWrite(stamp);
+            }
+            publish();
+            return true;
+        }
+    }
+    
+    public boolean remove(Resizable shape) {
+        synchronized (writeLock) {
+            Tracked tracked = shapes.remove(shape);
+            if (tracked == null) {
+                return false;
+            }
+            long stamp = colorLock.writeLock();
+            try {
+                exclude(tracked.area, tracked.color);
+            } finally {
+                colorLock.unlockWrite(stamp);
+            }
+            publish();
+            return true;
+        }
+    }
+    
+    public void resize(Resizable shape, double factor) {
+        synchronized (writeLock) {
+            Tracked tracked = tracked(shape);
+            shape.resize(factor);
+            long stamp = colorLock.writeLock();
+            try {
+                exclude(tracked.area, tracked.color);
+                tracked.area = shape.getSize();
+                include(tracked.area, tracked.color);
+            } finally {
+                colorLock.unlockWrite(stamp);
+            }
+            publish();
+        }
+    }
+    
+    public void setColor(Colorable shape, String color) {
+        synchronized (writeLock) {
+            if (!(shape instanceof Resizable)) {
+                throw new IllegalArgumentException("Shape is not registered");
+            }
+            Tracked tracked = tracked((Resizable) shape);
+            shape.setColor(color);
+            long stamp = colorLock.writeLock();
+            try {
+                removeColor(tracked.color, tracked.area);
+                tracked.color = colorOf((Resizable) shape);
+                addColor(tracked.color, tracked.area);
+            } finally {
+                colorLock.unlockWrite(stamp);
+            }
+        }
+    }
+    
+    // O(1), lock-free reads
+    public AreaTotals getTotals() {
+        return totals;
+    }
+    
+    // O(1); a null color gives the area of shapes without a colour
+    public double getColorArea(String color) {
+        long stamp = colorLock.tryOptimisticRead();
+        double area = colorArea(color);
+        if (!colorLock.validate(stamp)) {
+            stamp = colorLock.readLock(); // A write overlapped; read again behind it
+            try {
+                area = colorArea(color);
+            } finally {
+                colorLock.unlockRead(stamp);
+            }
+        }
+        return area;
+    }
+    
+    private double colorArea(String color) {
+        ColorTotal colorTotal = (color == null) ? uncolored : colorTotals.get(color);
+        return (colorTotal == null) ? 0.0 : colorTotal.area;
+    }
+    
+    private Tracked tracked(Resizable shape) {
+        Tracked tracked = shapes.get(shape);
+        if (tracked == null) {
+            throw new IllegalArgumentException("Shape is not registered");
+        }
+        return tracked;
+    }
+    
+    private void include(double area, String color) {
+        total += area;
+        areaCounts.merge(area, 1, Integer::sum);
+        addColor(color, area);
+    }
+    
+    private void exclude(double area, String color) {
+        total -= area;
+        areaCounts.computeIfPresent(area, (key, count) -> count == 1 ? null : count - 1);
+        removeColor(color, area);
+    }
+    
+    // Callers hold colorLock's write lock
+    private void addColor(String color, double area) {
+        ColorTotal colorTotal = (color == null) ? uncolored : colorTotals.computeIfAbsent(color, unused -> new ColorTotal());
+        colorTotal.area += area;
+        colorTotal.count++;
+    }
+    
+    private void removeColor(String color, double area) {
+        ColorTotal colorTotal = (color == null) ? uncolored : colorTotals.get(color);
+        if (--colorTotal.count == 0) {
+            colorTotal.area = 0;
+            if (color != null) {
+                colorTotals.remove(color);
+            }
+        } else {
+            colorTotal.area -= area;
+        }
+    }
+    
+    private void publish() {
+        if (shapes.isEmpty()) {
+            total = 0; // Drop any floating-point residue from repeated add/subtract
+            totals = new AreaTotals(0, 0, Double.NaN, Double.NaN);
+        } else {
+            totals = new AreaTotals(shapes.size(), total, areaCounts.firstKey(), areaCounts.lastKey());
+        }
+    }
+    
+    private static String colorOf(Resizable shape) {
+        return (shape instanceof Colorable) ? ((Colorable) shape).getColor() : null;
+    }
+}
+
+// ===== PARALLEL BULK TRANSFORMS OVER RESIZABLE COLLECTIONS =====
+// Splits large arrays/lists into ranges processed on a ForkJoinPool; inputs below the
+// threshold (and non-random-access lists) run on the calling thread.
+class BulkTransforms {
+    static final int DEFAULT_THRESHOLD = 4_096;
+    
+    // Resizes every shape without per-element printing. This goes straight to the shapes: a shape
+    // held by a SpatialGrid or ShapeRegistry must be resized through that index (or, for the grid,
+    // followed by update) or the index keeps its old bounds and area.
+    public static void resizeAll(Resizable[] shapes, double factor) {
+        transformAll(shapes, shape -> shape.scale(factor));
+    }
+    
+    public static void resizeAll(List<? extends Resizable> shapes, double factor) {
+        transformAll(shapes, shape -> shape.scale(factor));
+    }
+    
+    public static <T> void transformAll(T[] items, Consumer<? super T> transform) {
+        transformAll(Arrays.asList(items), transform, ForkJoinPool.commonPool(), DEFAULT_THRESHOLD);
+    }
+    
+    public static <T> void transformAll(List<T> items, Consumer<? super T> transform) {
+        transformAll(items, transform, ForkJoinPool.commonPool(), DEFAULT_THRESHOLD);
+    }
+    
+    // threshold: the largest range one task handles without splitting further
+    public static <T> void transformAll(List<T> items, Consumer<? super T> transform,
+                                       ForkJoinPool pool, int threshold) {
+        if (threshold < 1) {
+            throw new IllegalArgumentException("Threshold must be at least 1");
+        }
+        if (items.size() <= threshold || !(items instanceof RandomAccess)) {
+            items.forEach(transform);
+            return;
+        }
+        pool.invoke(new TransformTask<>(items, transform, 0, items.size(), threshold));
+    }
+    
+    private static class TransformTask<T> extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        
+        private final List<T> items;
+        private final Consumer<? super T> transform;
+        private final int from;
+        private final int to;
+        private final int threshold;
+        
+        TransformTask(List<T> items, Consumer<? super T> transform, int from, int to, int threshold) {
+            this.items = items;
+            this.transform = transform;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+        }
+        
+        @Override
+        protected void compute() {
+            if (to - from <= threshold) {
+                for (int i = from; i < to; i++) {
+                    transform.accept(items.get(i));
+                }
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new TransformTask<>(items, transform, from, middle, threshold),
+                          new TransformTask<>(items, transform, middle, to, threshold));
+            }
+        }
+    }
+    
+    public static void runBenchmark() {
+        System.out.println("\n=== BULK RESIZE BENCHMARK ===");
+        int count = 2_000_000;
+        Resizable[] shapes = new Resizable[count];
+        for (int i = 0; i < count; i++) {
+            shapes[i] = (i % 2 == 0) ? new Circle(1 + i % 10, "Red") : new Rectangle(1 + i % 7, 1 + i % 5, "Blue");
+        }
+        List<Resizable> list = Arrays.asList(shapes);
+        
+        int cores = Runtime.getRuntime().availableProcessors();
+        int parallelism = 1;
+        while (true) {
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            long best = Long.MAX_VALUE;
+            for (int run = 0; run < 5; run++) {
+                // Alternate grow/shrink so sizes stay bounded across runs
+                double factor = (run % 2 == 0) ? 2.0 : 0.5;
+                long start = System.nanoTime();
+                transformAll(list, shape -> shape.scale(factor), pool, DEFAULT_THRESHOLD);
+                best = Math.min(best, System.nanoTime() - start);
+            }
+            pool.shutdown();
+            System.out.printf("%d thread(s): %d ms for %,d shapes%n", parallelism, best / 1_000_000, count);
+            
+            if (parallelism == cores) {
+                break;
+            }
+            parallelism = Math.min(parallelism * 2, cores);
+        }
+    }
+}
+
+// ===== PER-TYPE METADATA CACHE =====
+// Everything that depends only on a shape's class - display name, which capability interfaces it
+// implements, method handles for its interface methods - is computed on first use and then served
+// lock-free from a ClassValue for the lifetime of the class.
+final class TypeMetadata {
+    static final int DRAWABLE = 1;
+    static final int RESIZABLE = 1 << 1;
+    static final int COLORABLE = 1 << 2;
+    static final int POSITIONED = 1 << 3;
+    
+    private static final ClassValue<TypeMetadata> CACHE = new ClassValue<TypeMetadata>() {
+        @Override
+        protected TypeMetadata computeValue(Class<?> type) {
+            return new TypeMetadata(type);
+        }
+    };
+    
+    private static final MethodHandle RESIZABLE_GET_SIZE;
+    
+    static {
+        try {
+            RESIZABLE_GET_SIZE = MethodHandles.lookup()
+                .findVirtual(Resizable.class, "getSize", MethodType.methodType(double.class))
+                .asType(MethodType.methodType(double.class, Object.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+    
+    final Class<?> type;
+    final String displayName;
+    final int capabilities;
+    private final MethodHandle getSize; // Bound to this class's own getSize, typed (Object)double; null if not Resizable
+    
+    private TypeMetadata(Class<?> type) {
+        this.type = type;
+        this.displayName = type.getSimpleName();
+        int mask = 0;
+        mask |= Drawable.class.isAssignableFrom(type) ? DRAWABLE : 0;
+        mask |= Resizable.class.isAssignableFrom(type) ? RESIZABLE : 0;
+        mask |= Colorable.class.isAssignableFrom(type) ? COLORABLE : 0;
+        mask |= Positioned.class.isAssignableFrom(type) ? POSITIONED : 0;
+        this.capabilities = mask;
+        MethodHandle handle = null;
+        if ((mask & RESIZABLE) != 0 && !type.isInterface()) {
+            try {
+                handle = MethodHandles.lookup().findVirtual(type, "getSize", MethodType.methodType(double.class))
+                                      .asType(MethodType.methodType(double.class, Object.class));
+            } catch (ReflectiveOperationException e) {
+                // A class this lookup cannot see (e.g. private elsewhere): fall back to the interface method
+                handle = RESIZABLE_GET_SIZE;
+            }
+        }
+        this.getSize = handle;
+    }
+    
+    static TypeMetadata of(Class<?> type) {
+        return CACHE.get(type);
+    }
+    
+    boolean has(int capability) {
+        return (capabilities & capability) == capability;
+    }
+    
+    // Calls getSize() through this class's handle; target must be an instance of this class
+    double invokeGetSize(Object target) {
+        if (getSize == null) {
+            throw new IllegalArgumentException(displayName + " is not Resizable");
+        }
+        if (!type.isInstance(target)) {
+            throw new IllegalArgumentException("Expected a " + displayName + ", got "
+                                               + (target == null ? "null" : target.getClass().getSimpleName()));
+        }
+        try {
+            return (double) getSize.invokeExact(target);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    // Per-call cost of the uncached lookups vs the cached metadata
+    public static void runBenchmark() {
+        System.out.println("\n=== TYPE METADATA BENCHMARK ===");
+        Object[] shapes = {new Circle(1, "Red"), new Rectangle(1, 2, "Blue")};
+        int calls = 10_000_000;
+        long checksum = 0;
+        long uncachedNanos = Long.MAX_VALUE;
+        long cachedNanos = Long.MAX_VALUE;
+        
+        for (int run = 0; run < 5; run++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < calls; i++) {
+                Class<?> type = shapes[i & 1].getClass();
+                checksum += type.getSimpleName().length();
+                checksum += Resizable.class.isAssignableFrom(type) ? 1 : 0;
+            }
+            uncachedNanos = Math.min(uncachedNanos, System.nanoTime() - start);
+            
+            start = System.nanoTime();
+            for (int i = 0; i < calls; i++) {
+                TypeMetadata metadata = of(shapes[i & 1].getClass());
+                checksum -= metadata.displayName.length();
+                checksum -= metadata.has(RESIZABLE) ? 1 : 0;
+            }
+            cachedNanos = Math.min(cachedNanos, System.nanoTime() - start);
+        }
+        // Recent JDKs already cache getSimpleName internally, so expect these two to be close
+        System.out.printf("Name + capability check: getSimpleName/isAssignableFrom %.1f ns/call, cached %.1f ns/call%s%n",
+                          (double) uncachedNanos / calls, (double) cachedNanos / calls,
+                          checksum == 0 ? "" : " (results differ!)");
+        
+        int reflectiveCalls = 1_000_000;
+        double directSum = 0;
+        double reflectiveSum = 0;
+        double handleSum = 0;
+        long directNanos = Long.MAX_VALUE;
+        long reflectiveNanos = Long.MAX_VALUE;
+        long handleNanos = Long.MAX_VALUE;
+        try {
+            for (int run = 0; run < 5; run++) {
+                long start = System.nanoTime();
+                for (int i = 0; i < reflectiveCalls; i++) {
+                    directSum += ((Resizable) shapes[i & 1]).getSize();
+                }
+                directNanos = Math.min(directNanos, System.nanoTime() - start);
+                
+                start = System.nanoTime();
+                for (int i = 0; i < reflectiveCalls; i++) {
+                    Object shape = shapes[i & 1];
+                    reflectiveSum += (double) Resizable.class.getMethod("getSize").invoke(shape);
+                }
+                reflectiveNanos = Math.min(reflectiveNanos, System.nanoTime() - start);
+                
+                start = System.nanoTime();
+                for (int i = 0; i < reflectiveCalls; i++) {
+                    Object shape = shapes[i & 1];
+                    handleSum += of(shape.getClass()).invokeGetSize(shape);
+                }
+                handleNanos = Math.min(handleNanos, System.nanoTime() - start);
+            }
+        } catch (ReflectiveOperationException e) {
+            e.printStackTrace();
+        }
+        // The direct call is the baseline; the cached handle should sit much closer to it than reflection
+        System.out.printf("getSize: direct call %.1f ns/call, getMethod+invoke %.1f ns/call, cached MethodHandle %.1f ns/call%s%n",
+                          (double) directNanos / reflectiveCalls, (double) reflectiveNanos / reflectiveCalls,
+                          (double) handleNanos / reflectiveCalls,
+                          directSum == reflectiveSum && reflectiveSum == handleSum ? "" : " (results differ!)");
+    }
+}
+
+// ===== BATCHED TEXT RENDERING =====
+// Drawables append into one reusable buffer; the text is encoded and written to the channel
+// only when the buffer passes the flush threshold, so a large scene costs a few big writes.
+class RenderPipeline implements AutoCloseable {
+    private final WritableByteChannel channel;
+    private final StringBuilder text;
+    private final ByteBuffer bytes;
+    // Unpaired surrogates in a description become '?' rather than failing the whole batch
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+        .onMalformedInput(CodingErrorAction.REPLACE)
+        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private final int flushThreshold;
+    private long rendered;
+    
+    public RenderPipeline(WritableByteChannel channel, int flushThreshold) {
+        this.channel = channel;
+        this.flushThreshold = flushThreshold;
+        this.text = new StringBuilder(flushThreshold + 256);
+        this.bytes = ByteBuffer.allocateDirect(Math.max(flushThreshold, 1024) * 2);
+    }
+    
+    // Console pipeline with a 64 KB batch
+    public static RenderPipeline toStandardOut() {
+        return new RenderPipeline(Channels.newChannel(System.out), 64 * 1024);
+    }
+    
+    public void render(Drawable drawable) throws IOException {
+        drawable.drawTo(text);
+        text.append('\n');
+        rendered++;
+        if (text.length() >= flushThreshold) {
+            flush();
+        }
+    }
+    
+    public void renderAll(Iterable<? extends Drawable> drawables) throws IOException {
+        for (Drawable drawable : drawables) {
+            render(drawable);
+        }
+    }
+    
+    public void flush() throws IOException {
+        if (text.length() == 0) {
+            return;
+        }
+        CharBuffer chars = CharBuffer.wrap(text);
+        encoder.reset();
+        try {
+            while (true) {
+                CoderResult result = encoder.encode(chars, bytes, true);
+                if (result.isError()) {
+                    result.throwException(); // Not expected with REPLACE, but never spin on it
+                }
+                drain();
+                if (result.isUnderflow()) {
+                    break;
+                }
+            }
+            encoder.flush(bytes);
+            drain();
+        } finally {
+            text.setLength(0);
+        }
+    }
+    
+    private void drain() throws IOException {
+        bytes.flip();
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+        bytes.clear();
+    }
+    
+    public long getRendered() {
+        return rendered;
+    }
+    
+    @Override
+    public void close() throws IOException {
+        flush();
+    }
+    
+    public static void runBenchmark() {
+        System.out.println("\n=== RENDER PIPELINE BENCHMARK ===");
+        int count = 1_000_000;
+        List<Drawable> scene = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            scene.add(i % 2 == 0 ? new Circle(i % 50, "Red") : new Rectangle(i % 30, i % 20, "Blue"));
+        }
+        // Both variants write to a discarding sink, so only formatting and write overhead is measured
+        PrintStream console = System.out;
+        PrintStream discard = new PrintStream(OutputStream.nullOutputStream());
+        
+        long start = System.nanoTime();
+        System.setOut(discard);
+        try {
+            for (Drawable drawable : scene) {
+                drawable.draw();
+            }
+        } finally {
+            System.setOut(console);
+        }
+        long printlnNanos = System.nanoTime() - start;
+        
+        start = System.nanoTime();
+        try (RenderPipeline pipeline = new RenderPipeline(Channels.newChannel(OutputStream.nullOutputStream()), 64 * 1024)) {
+            pipeline.renderAll(scene);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        long pipelineNanos = System.nanoTime() - start;
+        
+        System.out.printf("%,d drawables: draw()+println %d ms, RenderPipeline %d ms%n",
+                          count, printlnNanos / 1_000_000, pipelineNanos / 1_000_000);
+    }
 }
 
 // ===== POLYMORPHISM THROUGH INHERITANCE =====
@@ -232,6 +1264,62 @@ public class Group4_PolymorphismInterfaces {
         System.out.println("=== INTERFACE AS METHOD PARAMETER ===");
         processDrawable(new Circle(3, "Green"));
         processDrawable(new Rectangle(2, 3, "Yellow"));
+        
+        System.out.println("\n=== SPATIAL INDEX OVER POSITIONED DRAWABLES ===");
+        SpatialGrid<Positioned> grid = new SpatialGrid<>(10);
+        Circle sun = new Circle(5, "Yellow", 0, 0);
+        Rectangle house = new Rectangle(8, 6, "Brown", 20, 0);
+        Circle ball = new Circle(1, "Red", 50, 50);
+        grid.bulkLoad(List.of(sun, house, ball));
+        
+        System.out.println("Visible in viewport (-10,-10)-(15,15):");
+        for (Drawable drawable : grid.query(-10, -10, 15, 15)) {
+            drawable.draw();
+        }
+        grid.resize(sun, 4); // Index follows the new bounds
+        System.out.println("After resizing the sun, visible in viewport:");
+        for (Drawable drawable : grid.query(-10, -10, 15, 15)) {
+            drawable.draw();
+        }
+        System.out.println("Two nearest to (45, 45):");
+        for (Drawable drawable : grid.nearest(45, 45, 2)) {
+            drawable.draw();
+        }
+        SpatialGrid.runBenchmark();
+        
+        System.out.println("\n=== SHAPE REGISTRY AGGREGATES ===");
+        ShapeRegistry registry = new ShapeRegistry();
+        Circle redCircle = new Circle(1, "Red");
+        Rectangle blueRectangle = new Rectangle(2, 3, "Blue");
+        registry.add(redCircle);
+        registry.add(blueRectangle);
+        System.out.println("Totals: " + registry.getTotals());
+        registry.resize(blueRectangle, 2);
+        registry.setColor(redCircle, "Blue");
+        System.out.println("After resize and recolor: " + registry.getTotals());
+        System.out.println("Blue area: " + registry.getColorArea("Blue") + ", Red area: " + registry.getColorArea("Red"));
+        registry.remove(redCircle);
+        System.out.println("After removing the circle: " + registry.getTotals());
+        
+        System.out.println("\n=== BULK RESIZE ===");
+        Resizable[] scene = new Resizable[10_000];
+        for (int i = 0; i < scene.length; i++) {
+            scene[i] = new Circle(1, "Gray");
+        }
+        BulkTransforms.resizeAll(scene, 3); // No per-shape output
+        System.out.println("Resized " + scene.length + " circles, first area now: " + scene[0].getSize());
+        BulkTransforms.runBenchmark();
+        
+        System.out.println("\n=== BATCHED RENDERING ===");
+        try {
+            RenderPipeline pipeline = RenderPipeline.toStandardOut();
+            pipeline.renderAll(Arrays.asList(drawables));
+            pipeline.flush(); // One write for the whole scene
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        RenderPipeline.runBenchmark();
+        TypeMetadata.runBenchmark();
     }
     
     // Method accepting interface type
@@ -1,3 +1,14 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
 // ===== INTERFACES =====
 interface Flyable {
     void fly();
@@ -149,11 +160,156 @@ class Car extends Vehicle implements Drivable, Honkable {
     }
 }
 
+// ===== CAPABILITY INDEX FOR MULTI-INTERFACE ENTITIES =====
+// Entities are filed under every capability interface they implement when registered.
+// The capability bitmask is computed once per class (ClassValue) rather than with instanceof
+// tests per object, and queries return the matching list directly - O(result), no filtering.
+class CapabilityRegistry {
+    // Bit i of a mask means the class implements CAPABILITIES[i]
+    private static final List<Class<?>> CAPABILITIES = List.of(
+        Flyable.class, Swimmable.class, Runnable.class, Honkable.class, Drivable.class);
+    
+    private static final ClassValue<Integer> MASKS = new ClassValue<Integer>() {
+        @Override
+        protected Integer computeValue(Class<?> type) {
+            int mask = 0;
+            for (int i = 0; i < CAPABILITIES.size(); i++) {
+                if (CAPABILITIES.get(i).isAssignableFrom(type)) {
+                    mask |= 1 << i;
+                }
+            }
+            return mask;
+        }
+    };
+    
+    private final List<List<Object>> byCapability = new ArrayList<>();
+    private int registered;
+    
+    public CapabilityRegistry() {
+        for (int i = 0; i < CAPABILITIES.size(); i++) {
+            byCapability.add(new ArrayList<>());
+        }
+    }
+    
+    public static int capabilityMask(Class<?> type) {
+        return MASKS.get(type);
+    }
+    
+    // Registration is expected from one thread (or externally synchronized)
+    public void register(Object entity) {
+        int mask = MASKS.get(entity.getClass());
+        while (mask != 0) {
+            int bit = Integer.numberOfTrailingZeros(mask);
+            byCapability.get(bit).add(entity);
+            mask &= mask - 1;
+        }
+        registered++;
+    }
+    
+    public int size() {
+        return registered;
+    }
+    
+    // Read-only view of every registered entity implementing the capability
+    @SuppressWarnings("unchecked")
+    public <T> List<T> withCapability(Class<T> capability) {
+        int bit = CAPABILITIES.indexOf(capability);
+        if (bit < 0) {
+            throw new IllegalArgumentException(capability.getSimpleName() + " is not an indexed capability");
+        }
+        return (List<T>) Collections.unmodifiableList(byCapability.get(bit));
+    }
+    
+    // Applies the action to every entity with the capability, in chunks across the executor
+    public <T> void invokeAll(Class<T> capability, Consumer<? super T> action, ExecutorService executor) {
+        List<T> targets = withCapability(capability);
+        int chunks = Math.max(1, Math.min(targets.size() / 1_000, Runtime.getRuntime().availableProcessors() * 4));
+        int chunkSize = (targets.size() + chunks - 1) / chunks;
+        List<Future<?>> pending = new ArrayList<>(chunks);
+        for (int from = 0; from < targets.size(); from += chunkSize) {
+            List<T> chunk = targets.subList(from, Math.min(from + chunkSize, targets.size()));
+            pending.add(executor.submit(() -> chunk.forEach(action)));
+        }
+        for (Future<?> future : pending) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Bulk invocation failed", e.getCause());
+            }
+        }
+    }
+}
+
+// ===== STRING DICTIONARY =====
+// Maps repetitive string values to dense int codes so records can store a code instead of their own
+// String instance. Lookups in both directions are lock-free; only the first sighting of a value locks.
+// Codes are never reused or removed.
+final class StringDictionary {
+    // Reserved for null, which ConcurrentHashMap cannot hold as a key
+    public static final int NULL_CODE = -1;
+    
+    private final ConcurrentHashMap<String, Integer> codes = new ConcurrentHashMap<>();
+    private volatile String[] values = new String[16];
+    private int size; // Guarded by this
+    
+    public int encode(String value) {
+        if (value == null) {
+            return NULL_CODE;
+        }
+        Integer code = codes.get(value);
+        return (code != null) ? code : append(value);
+    }
+    
+    private synchronized int append(String value) {
+        Integer code = codes.get(value);
+        if (code != null) {
+            return code;
+        }
+        String[] current = values;
+        if (size == current.length) {
+            current = Arrays.copyOf(current, size * 2);
+        }
+        current[size] = value;
+        values = current; // Publish the slot before the code becomes visible through the map
+        codes.put(value, size);
+        return size++;
+    }
+    
+    public String decode(int code) {
+        if (code == NULL_CODE) {
+            return null;
+        }
+        String[] current = values;
+        if (code >= 0 && code < current.length && current[code] != null) {
+            return current[code];
+        }
+        return decodeSlow(code);
+    }
+    
+    // A code handed over without a happens-before edge may be newer than our view of the table
+    private synchronized String decodeSlow(int code) {
+        if (code < 0 || code >= size) {
+            throw new IllegalArgumentException("Unknown code " + code);
+        }
+        return values[code];
+    }
+    
+    public synchronized int size() {
+        return size;
+    }
+}
+
 // Example showing different constructor types
 class Person {
+    // Addresses repeat heavily (and "Unknown" most of all), so each person keeps only a code
+    static final StringDictionary ADDRESSES = new StringDictionary();
+    
     private String name;
     private int age;
-    private String address;
+    private int addressCode;
     
     // Default constructor
     public Person() {
@@ -177,18 +333,22 @@ class Person {
     public Person(String name, int age, String address) {
         this.name = name;
         this.age = age;
-        this.address = address;
+        this.addressCode = ADDRESSES.encode(address);
         System.out.println("Main constructor called");
     }
     
     // Copy constructor
     public Person(Person other) {
-        this(other.name, other.age, other.address);
+        this(other.name, other.age, other.getAddress());
         System.out.println("Copy constructor called");
     }
     
+    public String getAddress() {
+        return ADDRESSES.decode(addressCode);
+    }
+    
     public void display() {
-        System.out.println("Person: " + name + ", Age: " + age + ", Address: " + address);
+        System.out.println("Person: " + name + ", Age: " + age + ", Address: " + getAddress());
     }
 }
 
@@ -209,6 +369,16 @@ public class Group6_ClassExtensionInterfaceConstructors {
         duck.run();
         duck.quack();
         
+        System.out.println("\n--- Capability index ---");
+        CapabilityRegistry registry = new CapabilityRegistry();
+        registry.register(duck);
+        registry.register(new Duck("Daisy", 3, "brown"));
+        System.out.println("Swimmers: " + registry.withCapability(Swimmable.class).size()
+                           + ", drivables: " + registry.withCapability(Drivable.class).size());
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        registry.invokeAll(Flyable.class, Flyable::takeOff, executor); // All Flyables take off
+        executor.shutdown();
+        
         System.out.println("\n" + "=".repeat(50));
         System.out.println("=== CONSTRUCTOR INVOCATION EXAMPLES ===");
         
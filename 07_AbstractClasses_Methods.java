@@ -1,9 +1,60 @@
+// ===== FIXED-POINT MONEY (long cents, no double arithmetic) =====
+// Only the operations this file uses
+final class Money {
+    public static final Money ZERO = new Money(0);
+    
+    private final long cents;
+    
+    private Money(long cents) {
+        this.cents = cents;
+    }
+    
+    public static Money ofCents(long cents) {
+        return cents == 0 ? ZERO : new Money(cents);
+    }
+    
+    // For values coming from double-based APIs; rounds half-up to the nearest cent
+    public static Money ofDouble(double amount) {
+        double scaled = amount * 100.0;
+        if (Double.isNaN(scaled) || scaled >= 9.2e18 || scaled <= -9.2e18) {
+            throw new ArithmeticException("Amount out of range: " + amount);
+        }
+        return ofCents(Math.round(scaled));
+    }
+    
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof Money && ((Money) other).cents == cents;
+    }
+    
+    @Override
+    public int hashCode() {
+        return Long.hashCode(cents);
+    }
+    
+    // Formats as "1234.56" (no currency sign, matching how amounts are printed after "$")
+    @Override
+    public String toString() {
+        StringBuilder out = new StringBuilder(24);
+        if (cents < 0) {
+            out.append('-');
+        }
+        long units = Math.abs(cents / 100);
+        int fraction = (int) Math.abs(cents % 100);
+        return out.append(units).append('.').append((char) ('0' + fraction / 10)).append((char) ('0' + fraction % 10)).toString();
+    }
+}
+
 // ===== ABSTRACT CLASS EXAMPLE 1: Payment System =====
 abstract class Payment {
-    protected double amount;
+    protected Money amount;
     protected String transactionId;
     
     public Payment(double amount) {
+        this(Money.ofDouble(amount));
+    }
+    
+    public Payment(Money amount) {
         this.amount = amount;
         this.transactionId = generateTransactionId();
     }
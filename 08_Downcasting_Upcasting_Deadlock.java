@@ -1,3 +1,24 @@
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
 // ===== CLASSES FOR CASTING DEMONSTRATION =====
 class Animal {
     protected String name;
@@ -75,6 +96,271 @@ class Bird extends Animal {
     }
 }
 
+// ===== PER-TYPE METADATA CACHE =====
+// What safeDowncast works out with an instanceof chain on every call - which subtype an animal is
+// and which type-specific methods apply - is resolved once per class and cached in a ClassValue.
+final class TypeMetadata {
+    private static final ClassValue<TypeMetadata> CACHE = new ClassValue<TypeMetadata>() {
+        @Override
+        protected TypeMetadata computeValue(Class<?> type) {
+            return new TypeMetadata(type);
+        }
+    };
+    
+    final String displayName;
+    final MethodHandle[] actions; // Type-specific methods, each adapted to (Animal)void; empty if none
+    
+    private TypeMetadata(Class<?> type) {
+        this.displayName = type.getSimpleName();
+        try {
+            if (Dog.class.isAssignableFrom(type)) {
+                actions = new MethodHandle[] {handle(Dog.class, "fetch"), handle(Dog.class, "wagTail")};
+            } else if (Cat.class.isAssignableFrom(type)) {
+                actions = new MethodHandle[] {handle(Cat.class, "scratch"), handle(Cat.class, "purr")};
+            } else if (Bird.class.isAssignableFrom(type)) {
+                actions = new MethodHandle[] {handle(Bird.class, "fly")};
+            } else {
+                actions = new MethodHandle[0];
+            }
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot bind methods for " + displayName, e);
+        }
+    }
+    
+    private static MethodHandle handle(Class<?> owner, String name) throws ReflectiveOperationException {
+        return MethodHandles.lookup().findVirtual(owner, name, MethodType.methodType(void.class))
+                            .asType(MethodType.methodType(void.class, Animal.class));
+    }
+    
+    static TypeMetadata of(Class<?> type) {
+        return CACHE.get(type);
+    }
+    
+    // Same output as safeDowncast, without testing the type again
+    void process(Animal animal) {
+        System.out.println("\nAttempting to process animal: " + animal.name);
+        if (actions.length == 0) {
+            System.out.println("Unknown animal type");
+            return;
+        }
+        try {
+            for (MethodHandle action : actions) {
+                action.invokeExact(animal);
+            }
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
+
+// ===== TYPE-PARTITIONED ANIMAL COLLECTION =====
+// Each concrete type lives in its own array, so the type test happens once at insertion and
+// bulk operations run as monomorphic loops (one receiver class per call site) the JIT can inline.
+class AnimalPopulation {
+    private Dog[] dogs = new Dog[16];
+    private Cat[] cats = new Cat[16];
+    private Bird[] birds = new Bird[16];
+    private Animal[] others = new Animal[16]; // Any other class, including subclasses of Dog/Cat/Bird
+    private int dogCount;
+    private int catCount;
+    private int birdCount;
+    private int otherCount;
+    
+    public void add(Animal animal) {
+        // Exact class match keeps each array homogeneous
+        Class<?> type = animal.getClass();
+        if (type == Dog.class) {
+            if (dogCount == dogs.length) {
+                dogs = Arrays.copyOf(dogs, dogCount * 2);
+            }
+            dogs[dogCount++] = (Dog) animal;
+        } else if (type == Cat.class) {
+            if (catCount == cats.length) {
+                cats = Arrays.copyOf(cats, catCount * 2);
+            }
+            cats[catCount++] = (Cat) animal;
+        } else if (type == Bird.class) {
+            if (birdCount == birds.length) {
+                birds = Arrays.copyOf(birds, birdCount * 2);
+            }
+            birds[birdCount++] = (Bird) animal;
+        } else {
+            if (otherCount == others.length) {
+                others = Arrays.copyOf(others, otherCount * 2);
+            }
+            others[otherCount++] = animal;
+        }
+    }
+    
+    public int size() {
+        return dogCount + catCount + birdCount + otherCount;
+    }
+    
+    public int getDogCount() {
+        return dogCount;
+    }
+    
+    public int getCatCount() {
+        return catCount;
+    }
+    
+    public int getBirdCount() {
+        return birdCount;
+    }
+    
+    // Custom per-type operations, still one receiver type per loop
+    public void forEachDog(Consumer<? super Dog> action) {
+        for (int i = 0; i < dogCount; i++) {
+            action.accept(dogs[i]);
+        }
+    }
+    
+    public void forEachCat(Consumer<? super Cat> action) {
+        for (int i = 0; i < catCount; i++) {
+            action.accept(cats[i]);
+        }
+    }
+    
+    public void forEachBird(Consumer<? super Bird> action) {
+        for (int i = 0; i < birdCount; i++) {
+            action.accept(birds[i]);
+        }
+    }
+    
+    public void dogsFetchAndWag() {
+        Dog[] dogs = this.dogs;
+        for (int i = 0; i < dogCount; i++) {
+            dogs[i].fetch();
+            dogs[i].wagTail();
+        }
+    }
+    
+    public void catsScratchAndPurr() {
+        Cat[] cats = this.cats;
+        for (int i = 0; i < catCount; i++) {
+            cats[i].scratch();
+            cats[i].purr();
+        }
+    }
+    
+    public void birdsFly() {
+        Bird[] birds = this.birds;
+        for (int i = 0; i < birdCount; i++) {
+            birds[i].fly();
+        }
+    }
+    
+    // Runs each animal's type-specific actions, minus the instanceof chain. Output is grouped by
+    // type (dogs, then cats, then birds) rather than in insertion order, and partitioned animals
+    // get no "Attempting to process" header; animals of other classes are handled exactly as
+    // safeDowncast would handle them, header line included.
+    public void processAll() {
+        dogsFetchAndWag();
+        catsScratchAndPurr();
+        birdsFly();
+        for (int i = 0; i < otherCount; i++) {
+            TypeMetadata.of(others[i].getClass()).process(others[i]); // Subclasses resolve once per class
+        }
+    }
+    
+    public void makeSoundAll() {
+        for (int i = 0; i < dogCount; i++) {
+            dogs[i].makeSound();
+        }
+        for (int i = 0; i < catCount; i++) {
+            cats[i].makeSound();
+        }
+        for (int i = 0; i < birdCount; i++) {
+            birds[i].makeSound();
+        }
+        for (int i = 0; i < otherCount; i++) {
+            others[i].makeSound();
+        }
+    }
+    
+    // Animal[] + instanceof chain vs partitioned arrays, at several type mixes
+    public static void runBenchmark() {
+        System.out.println("\n=== TYPE-PARTITIONED COLLECTION BENCHMARK ===");
+        int count = 1_000_000;
+        int[][] mixes = {{34, 33, 33}, {80, 10, 10}, {10, 10, 80}}; // Dog/Cat/Bird percentages
+        PrintStream console = System.out;
+        
+        for (int[] mix : mixes) {
+            Random random = new Random(5);
+            Animal[] animals = new Animal[count];
+            AnimalPopulation population = new AnimalPopulation();
+            for (int i = 0; i < count; i++) {
+                int roll = random.nextInt(100);
+                Animal animal = roll < mix[0] ? new Dog("D" + i) : roll < mix[0] + mix[1] ? new Cat("C" + i) : new Bird("B" + i);
+                animals[i] = animal;
+                population.add(animal);
+            }
+            
+            long chainNanos = Long.MAX_VALUE;
+            long partitionedNanos = Long.MAX_VALUE;
+            // Output goes to a discarding stream so the loops themselves are compared
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+            try {
+                for (int run = 0; run < 5; run++) {
+                    long start = System.nanoTime();
+                    for (Animal animal : animals) {
+                        if (animal instanceof Dog) {
+                            ((Dog) animal).fetch();
+                            ((Dog) animal).wagTail();
+                        } else if (animal instanceof Cat) {
+                            ((Cat) animal).scratch();
+                            ((Cat) animal).purr();
+                        } else if (animal instanceof Bird) {
+                            ((Bird) animal).fly();
+                        }
+                    }
+                    chainNanos = Math.min(chainNanos, System.nanoTime() - start);
+                    
+                    start = System.nanoTime();
+                    population.processAll();
+                    partitionedNanos = Math.min(partitionedNanos, System.nanoTime() - start);
+                }
+            } finally {
+                System.setOut(console);
+            }
+            
+            // The methods above print, which dominates; this pass isolates the type dispatch itself
+            long chainDispatchNanos = Long.MAX_VALUE;
+            long partitionedDispatchNanos = Long.MAX_VALUE;
+            boolean resultsMatch = true;
+            for (int run = 0; run < 5; run++) {
+                long start = System.nanoTime();
+                long[] perType = new long[3];
+                for (Animal animal : animals) {
+                    if (animal instanceof Dog) {
+                        perType[0] += animal.name.length();
+                    } else if (animal instanceof Cat) {
+                        perType[1] += animal.name.length();
+                    } else if (animal instanceof Bird) {
+                        perType[2] += animal.name.length();
+                    }
+                }
+                chainDispatchNanos = Math.min(chainDispatchNanos, System.nanoTime() - start);
+                
+                start = System.nanoTime();
+                long[] partitioned = new long[3];
+                population.forEachDog(dog -> partitioned[0] += dog.name.length());
+                population.forEachCat(cat -> partitioned[1] += cat.name.length());
+                population.forEachBird(bird -> partitioned[2] += bird.name.length());
+                partitionedDispatchNanos = Math.min(partitionedDispatchNanos, System.nanoTime() - start);
+                resultsMatch &= Arrays.equals(perType, partitioned);
+            }
+            System.out.printf("Mix %d/%d/%d: with output Animal[]+instanceof %d ms vs partitioned %d ms; "
+                              + "dispatch only %d us vs %d us%s%n",
+                              mix[0], mix[1], mix[2], chainNanos / 1_000_000, partitionedNanos / 1_000_000,
+                              chainDispatchNanos / 1000, partitionedDispatchNanos / 1000,
+                              resultsMatch ? "" : " (results differ!)");
+        }
+    }
+}
+
 // ===== DEADLOCK DEMONSTRATION =====
 class DeadlockDemo {
     // Two resources
@@ -202,6 +488,203 @@ class DeadlockDemo {
     }
 }
 
+// ===== DEADLOCK-FREE MULTI-ACCOUNT TRANSFERS =====
+// Same idea as preventDeadlock(), generalised: every account has a unique id and
+// locks are always taken in ascending id order, so no two transfers can wait on each other in a cycle.
+class LedgerAccount {
+    private final long id;
+    private long balanceCents; // Guarded by lock
+    final ReentrantLock lock = new ReentrantLock();
+    
+    public LedgerAccount(long id, long initialBalanceCents) {
+        this.id = id;
+        this.balanceCents = initialBalanceCents;
+    }
+    
+    public long getId() {
+        return id;
+    }
+    
+    public long getBalanceCents() {
+        lock.lock();
+        try {
+            return balanceCents;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    // Only called by TransferEngine while the lock is held
+    long balanceUnderLock() {
+        return balanceCents;
+    }
+    
+    void applyUnderLock(long deltaCents) {
+        balanceCents = Math.addExact(balanceCents, deltaCents);
+    }
+}
+
+// An N-way transfer: one delta per account leg, debits negative, credits positive, summing to zero
+class MultiTransfer {
+    final LedgerAccount[] accounts;
+    final long[] deltasCents;
+    
+    public MultiTransfer(LedgerAccount[] accounts, long[] deltasCents) {
+        accounts = accounts.clone(); // Validate and keep copies, so the caller cannot unbalance the legs later
+        deltasCents = deltasCents.clone();
+        if (accounts.length != deltasCents.length) {
+            throw new IllegalArgumentException("Every account needs exactly one delta");
+        }
+        long sum = 0;
+        for (long delta : deltasCents) {
+            sum = Math.addExact(sum, delta);
+        }
+        if (sum != 0) {
+            throw new IllegalArgumentException("Transfer legs must sum to zero, got " + sum);
+        }
+        this.accounts = accounts;
+        this.deltasCents = deltasCents;
+    }
+    
+    public static MultiTransfer of(LedgerAccount from, LedgerAccount to, long amountCents) {
+        return new MultiTransfer(new LedgerAccount[] {from, to}, new long[] {-amountCents, amountCents});
+    }
+}
+
+class TransferEngine {
+    private final ExecutorService executor;
+    private final AtomicLong commits = new AtomicLong();
+    private final AtomicLong aborts = new AtomicLong();
+    
+    public TransferEngine(int threads) {
+        this.executor = Executors.newFixedThreadPool(threads);
+    }
+    
+    // Runs the batch in parallel; transfers touching disjoint accounts never contend
+    public void executeBatch(List<MultiTransfer> batch) {
+        long startCommits = commits.get();
+        long startAborts = aborts.get();
+        long start = System.nanoTime();
+        
+        List<Future<?>> pending = new ArrayList<>(batch.size());
+        for (MultiTransfer transfer : batch) {
+            pending.add(executor.submit(() -> execute(transfer)));
+        }
+        for (Future<?> future : pending) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                e.printStackTrace();
+            }
+        }
+        
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        long batchCommits = commits.get() - startCommits;
+        long batchAborts = aborts.get() - startAborts;
+        System.out.printf("Batch of %d: %d committed, %d aborted (%.2f%% abort rate), %.0f commits/sec%n",
+                          batch.size(), batchCommits, batchAborts,
+                          batch.isEmpty() ? 0.0 : 100.0 * batchAborts / batch.size(),
+                          batchCommits / seconds);
+    }
+    
+    // All-or-nothing: every leg is applied, or none are (e.g. a debit would overdraw)
+    public boolean execute(MultiTransfer transfer) {
+        // Merge legs on the same account and sort by id - the global lock order
+        TreeMap<Long, LedgerAccount> ordered = new TreeMap<>();
+        Map<LedgerAccount, Long> netDeltas = new HashMap<>();
+        for (int i = 0; i < transfer.accounts.length; i++) {
+            LedgerAccount account = transfer.accounts[i];
+            LedgerAccount previous = ordered.putIfAbsent(account.getId(), account);
+            if (previous != null && previous != account) {
+                throw new IllegalArgumentException("Duplicate account id " + account.getId());
+            }
+            netDeltas.merge(account, transfer.deltasCents[i], Math::addExact);
+        }
+        
+        LedgerAccount[] locked = ordered.values().toArray(new LedgerAccount[0]);
+        for (LedgerAccount account : locked) {
+            account.lock.lock();
+        }
+        try {
+            // Validate every leg, overflow included, before applying any of them
+            for (LedgerAccount account : locked) {
+                long delta = netDeltas.get(account);
+                long balance = account.balanceUnderLock();
+                boolean overflows = (delta > 0) ? balance > Long.MAX_VALUE - delta : balance < Long.MIN_VALUE - delta;
+                if (overflows || balance + delta < 0) {
+                    aborts.incrementAndGet();
+                    return false;
+                }
+            }
+            for (LedgerAccount account : locked) {
+                account.applyUnderLock(netDeltas.get(account));
+            }
+            commits.incrementAndGet();
+            return true;
+        } finally {
+            for (int i = locked.length - 1; i >= 0; i--) {
+                locked[i].lock.unlock();
+            }
+        }
+    }
+    
+    public long getCommits() {
+        return commits.get();
+    }
+    
+    public long getAborts() {
+        return aborts.get();
+    }
+    
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    public static void demonstrateTransferEngine() {
+        System.out.println("\n=== DEADLOCK-FREE TRANSFER ENGINE ===");
+        int accountCount = 1_000;
+        LedgerAccount[] accounts = new LedgerAccount[accountCount];
+        for (int i = 0; i < accountCount; i++) {
+            accounts[i] = new LedgerAccount(i, 10_000);
+        }
+        
+        // A few hot accounts appear in a large share of the transfers, in both directions
+        Random random = new Random(42);
+        List<MultiTransfer> batch = new ArrayList<>();
+        for (int i = 0; i < 200_000; i++) {
+            LedgerAccount a = accounts[random.nextInt(10) == 0 ? random.nextInt(4) : random.nextInt(accountCount)];
+            LedgerAccount b = accounts[random.nextInt(accountCount)];
+            LedgerAccount c = accounts[random.nextInt(accountCount)];
+            long amount = 1 + random.nextInt(5_000);
+            if (i % 4 == 0) {
+                // 3-way split: a pays b and c
+                batch.add(new MultiTransfer(new LedgerAccount[] {a, b, c},
+                                            new long[] {-2 * amount, amount, amount}));
+            } else {
+                batch.add(MultiTransfer.of(a, b, amount));
+            }
+        }
+        
+        TransferEngine engine = new TransferEngine(Runtime.getRuntime().availableProcessors());
+        engine.executeBatch(batch);
+        engine.shutdown();
+        
+        long total = 0;
+        for (LedgerAccount account : accounts) {
+            total += account.getBalanceCents();
+        }
+        System.out.println("Total money before: " + (10_000L * accountCount) + ", after: " + total);
+    }
+}
+
 // Main class
 public class Group8_DowncastingUpcastingDeadlock {
     public static void main(String[] args) {
@@ -273,6 +756,24 @@ public class Group8_DowncastingUpcastingDeadlock {
         safeDowncast(animal2);
         safeDowncast(animal3);
         
+        // Large populations: partition by type once instead of testing types on every pass.
+        // processAll() runs type by type, so it is only exercised by the benchmark; the
+        // per-animal walkthrough above stays in insertion order.
+        System.out.println("\n--- Type-partitioned population ---");
+        AnimalPopulation population = new AnimalPopulation();
+        for (Animal animal : animals) {
+            population.add(animal);
+        }
+        System.out.println(population.size() + " animals partitioned: " + population.getDogCount() + " dog(s), "
+                           + population.getCatCount() + " cat(s), " + population.getBirdCount() + " bird(s)");
+        AnimalPopulation.runBenchmark();
+        
+        // Cached per-class metadata: the type relationship is worked out once per class
+        System.out.println("\n--- Downcasting via cached type metadata ---");
+        for (Animal animal : animals) {
+            TypeMetadata.of(animal.getClass()).process(animal);
+        }
+        
         // ===== DEADLOCK DEMONSTRATION =====
         DeadlockDemo deadlockDemo = new DeadlockDemo();
         deadlockDemo.demonstrateDeadlock();
@@ -286,6 +787,9 @@ public class Group8_DowncastingUpcastingDeadlock {
         
         deadlockDemo.preventDeadlock();
         
+        // Same lock-ordering rule applied to arbitrary multi-account transfers
+        TransferEngine.demonstrateTransferEngine();
+        
         // Summary
         System.out.println("\n" + "=".repeat(50));
         System.out.println("=== SUMMARY ===");
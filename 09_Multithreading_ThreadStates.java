@@ -1,5 +1,25 @@
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.LongSupplier;
 
 // ===== PROCESS DEMONSTRATION =====
 class ProcessInfo {
@@ -143,19 +163,199 @@ class MyCallable implements Callable<String> {
     }
 }
 
+// ===== ASYNCHRONOUS ACCOUNT EVENT SINK =====
+// Producers copy primitives into preallocated ring-buffer slots instead of building Strings;
+// a single background thread formats the events and writes them to the output in batches.
+class AccountEventSink {
+    public enum FullPolicy { DROP, BLOCK }
+    
+    static final int WITHDRAWING = 0;
+    static final int WITHDRAWN = 1;
+    static final int INSUFFICIENT_FUNDS = 2;
+    static final int DEPOSITING = 3;
+    static final int DEPOSITED = 4;
+    
+    private static final int MAX_BATCH = 256;
+    private static volatile AccountEventSink shared;
+    
+    // Slot storage, one entry per slot - nothing is allocated per event
+    private final int[] types;
+    private final String[] actors;
+    private final long[] values;
+    private final AtomicLongArray published; // Sequence stored in a slot once it is readable
+    private final int mask;
+    
+    private final AtomicLong claimed = new AtomicLong();  // Next sequence handed to a producer
+    private volatile long consumed;                       // Next sequence the consumer will read
+    private final AtomicLong dropped = new AtomicLong();
+    private final FullPolicy policy;
+    private final PrintStream out;
+    private final StringBuilder text = new StringBuilder(MAX_BATCH * 64); // Consumer-only
+    private final Thread consumer;
+    private volatile boolean running = true;
+    private volatile boolean consumerParked; // Producers unpark the consumer only while this is set
+    
+    public AccountEventSink(PrintStream out, int capacity, FullPolicy policy) {
+        int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1; // Round up to a power of two
+        this.types = new int[size];
+        this.actors = new String[size];
+        this.values = new long[size];
+        this.published = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            published.set(i, -1);
+        }
+        this.mask = size - 1;
+        this.out = out;
+        this.policy = policy;
+        this.consumer = new Thread(this::consumeLoop, "Account-Event-Sink");
+        consumer.setDaemon(true);
+        consumer.start();
+    }
+    
+    // Console sink used by BankAccount when no other sink is given
+    public static AccountEventSink shared() {
+        AccountEventSink sink = shared;
+        if (sink == null) {
+            synchronized (AccountEventSink.class) {
+                sink = shared;
+                if (sink == null) {
+                    sink = new AccountEventSink(System.out, 4096, FullPolicy.BLOCK);
+                    shared = sink;
+                }
+            }
+        }
+        return sink;
+    }
+    
+    // Returns false if the event was dropped because the ring was full
+    public boolean publish(int type, String actor, long value) {
+        long seq;
+        while (true) {
+            seq = claimed.get();
+            if (seq - consumed > mask) {
+                if (policy == FullPolicy.DROP) {
+                    dropped.incrementAndGet();
+                    return false;
+                }
+                LockSupport.parkNanos(1_000); // BLOCK: wait for the consumer to free a slot
+                continue;
+            }
+            if (claimed.compareAndSet(seq, seq + 1)) {
+                break;
+            }
+        }
+        int slot = (int) (seq & mask);
+        types[slot] = type;
+        actors[slot] = actor;
+        values[slot] = value;
+        published.set(slot, seq); // Volatile write makes the slot fields visible to the consumer
+        if (consumerParked) {
+            LockSupport.unpark(consumer);
+        }
+        return true;
+    }
+    
+    // Waits until everything published so far has been written
+    public void flush() {
+        long target = claimed.get();
+        while (consumed < target && consumer.isAlive()) {
+            LockSupport.parkNanos(100_000);
+        }
+        out.flush();
+    }
+    
+    public long getDropped() {
+        return dropped.get();
+    }
+    
+    public void close() {
+        flush();
+        running = false;
+        LockSupport.unpark(consumer);
+        try {
+            consumer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    private void consumeLoop() {
+        long next = 0;
+        int idleRounds = 0;
+        while (running || next < claimed.get()) {
+            int count = 0;
+            while (count < MAX_BATCH && published.get((int) (next & mask)) == next) {
+                int slot = (int) (next & mask);
+                format(types[slot], actors[slot], values[slot]);
+                actors[slot] = null;
+                next++;
+                count++;
+            }
+            if (count == 0) {
+                if (++idleRounds < 100) {
+                    Thread.onSpinWait();
+                    continue;
+                }
+                // Announce the park, then re-check: a producer either sees the flag or we see its slot
+                consumerParked = true;
+                if (running && published.get((int) (next & mask)) != next) {
+                    LockSupport.park(this);
+                }
+                consumerParked = false;
+                continue;
+            }
+            idleRounds = 0;
+            out.append(text);
+            text.setLength(0);
+            consumed = next; // Frees the batch's slots for producers
+        }
+        out.flush();
+    }
+    
+    private void format(int type, String actor, long value) {
+        text.append(actor);
+        switch (type) {
+            case WITHDRAWING:
+                text.append(" is withdrawing $").append(value);
+                break;
+            case WITHDRAWN:
+                text.append(" completed withdrawal. Balance: $").append(value);
+                break;
+            case INSUFFICIENT_FUNDS:
+                text.append(" - Insufficient funds! Balance: $").append(value);
+                break;
+            case DEPOSITING:
+                text.append(" is depositing $").append(value);
+                break;
+            case DEPOSITED:
+                text.append(" deposited. Balance: $").append(value);
+                break;
+            default:
+                text.append(" unknown event ").append(type);
+        }
+        text.append(System.lineSeparator());
+    }
+}
+
 // ===== THREAD SYNCHRONIZATION EXAMPLES =====
 class BankAccount {
     private int balance;
     private final Object lock = new Object();
+    private final AccountEventSink events;
     
     public BankAccount(int initialBalance) {
+        this(initialBalance, AccountEventSink.shared());
+    }
+    
+    public BankAccount(int initialBalance, AccountEventSink events) {
         this.balance = initialBalance;
+        this.events = events;
     }
     
     // Synchronized method
     public synchronized void withdraw(int amount, String threadName) {
         if (balance >= amount) {
-            System.out.println(threadName + " is withdrawing $" + amount);
+            events.publish(AccountEventSink.WITHDRAWING, threadName, amount);
             
             try {
                 Thread.sleep(100); // Simulate processing time
@@ -164,18 +364,18 @@ class BankAccount {
             }
             
             balance -= amount;
-            System.out.println(threadName + " completed withdrawal. Balance: $" + balance);
+            events.publish(AccountEventSink.WITHDRAWN, threadName, balance);
         } else {
-            System.out.println(threadName + " - Insufficient funds! Balance: $" + balance);
+            events.publish(AccountEventSink.INSUFFICIENT_FUNDS, threadName, balance);
         }
     }
     
     // Synchronized block (more efficient)
     public void deposit(int amount, String threadName) {
         synchronized(lock) {
-            System.out.println(threadName + " is depositing $" + amount);
+            events.publish(AccountEventSink.DEPOSITING, threadName, amount);
             balance += amount;
-            System.out.println(threadName + " deposited. Balance: $" + balance);
+            events.publish(AccountEventSink.DEPOSITED, threadName, balance);
         }
     }
     
@@ -184,6 +384,740 @@ class BankAccount {
     }
 }
 
+// ===== LOCK-FREE ACCOUNT (CAS instead of monitors) =====
+class LockFreeBankAccount {
+    // Balance kept in minor units (cents) so every update is one atomic long
+    private final AtomicLong balanceCents;
+    
+    public LockFreeBankAccount(long initialBalanceCents) {
+        if (initialBalanceCents < 0) {
+            throw new IllegalArgumentException("Opening balance cannot be negative: " + initialBalanceCents);
+        }
+        this.balanceCents = new AtomicLong(initialBalanceCents);
+    }
+    
+    // Compare-and-set loop: the overdraft check and the update happen atomically,
+    // and a losing thread simply retries instead of blocking
+    public boolean withdraw(long amountCents) {
+        if (amountCents <= 0) {
+            return false;
+        }
+        long current;
+        do {
+            current = balanceCents.get();
+            if (current < amountCents) {
+                return false; // Insufficient funds - rejected without ever blocking
+            }
+        } while (!balanceCents.compareAndSet(current, current - amountCents));
+        return true;
+    }
+    
+    public boolean deposit(long amountCents) {
+        if (amountCents <= 0) {
+            return false;
+        }
+        long current;
+        do {
+            current = balanceCents.get();
+            if (current > Long.MAX_VALUE - amountCents) {
+                return false; // Would overflow
+            }
+        } while (!balanceCents.compareAndSet(current, current + amountCents));
+        return true;
+    }
+    
+    // Not atomic across the two accounts: it is a CAS withdrawal followed by a CAS deposit, so between
+    // the two steps the amount is in neither balance and a reader summing both sees it missing. Money is
+    // never created or lost and the source can never overdraw. If the target rejects the deposit, the
+    // amount goes back to the source. Use TransferEngine (ordered locks) when the pair must change atomically.
+    public boolean transfer(LockFreeBankAccount target, long amountCents) {
+        if (target == this || !withdraw(amountCents)) {
+            return false;
+        }
+        if (!target.deposit(amountCents)) {
+            // Throws rather than wraps if concurrent deposits filled the source in the meantime
+            balanceCents.updateAndGet(current -> Math.addExact(current, amountCents));
+            return false;
+        }
+        return true;
+    }
+    
+    public long getBalanceCents() {
+        return balanceCents.get();
+    }
+}
+
+// ===== CONTENTION BENCHMARK: synchronized vs lock-free =====
+class ContentionBenchmark {
+    private static final long RUN_MILLIS = 300;
+    
+    // Monitor-based equivalent of LockFreeBankAccount.withdraw
+    private static final class SynchronizedAccount {
+        private long balanceCents;
+        
+        SynchronizedAccount(long balanceCents) {
+            this.balanceCents = balanceCents;
+        }
+        
+        synchronized boolean withdraw(long amountCents) {
+            if (balanceCents < amountCents) {
+                return false;
+            }
+            balanceCents -= amountCents;
+            return true;
+        }
+    }
+    
+    public static void runBenchmark() {
+        System.out.println("\n=== CONTENTION BENCHMARK (ops/sec, " + RUN_MILLIS + "ms per run) ===");
+        int cores = Runtime.getRuntime().availableProcessors();
+        System.out.printf("%-8s %18s %18s%n", "Threads", "synchronized", "lock-free CAS");
+        
+        int threads = 1;
+        while (true) {
+            // Same overdraft check on both sides; BankAccount.withdraw would mostly measure its demo sleep
+            SynchronizedAccount syncAccount = new SynchronizedAccount(Long.MAX_VALUE / 2);
+            LockFreeBankAccount casAccount = new LockFreeBankAccount(Long.MAX_VALUE / 2);
+            
+            long syncOps = measure(threads, () -> syncAccount.withdraw(1));
+            long casOps = measure(threads, () -> casAccount.withdraw(1));
+            
+            System.out.printf("%-8d %18d %18d%n", threads,
+                              syncOps * 1000 / RUN_MILLIS, casOps * 1000 / RUN_MILLIS);
+            
+            if (threads == cores) {
+                break;
+            }
+            threads = Math.min(threads * 2, cores); // Last row always uses every core
+        }
+    }
+    
+    // Runs the operation on the given number of threads for a fixed time and counts completed calls
+    private static long measure(int threads, Runnable operation) {
+        AtomicBoolean running = new AtomicBoolean(true);
+        LongAdder completed = new LongAdder();
+        Thread[] workers = new Thread[threads];
+        
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Thread(() -> {
+                while (running.get()) {
+                    operation.run();
+                    completed.increment();
+                }
+            }, "Bench-" + i);
+            workers[i].start();
+        }
+        
+        try {
+            Thread.sleep(RUN_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        running.set(false);
+        
+        for (Thread worker : workers) {
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return completed.sum();
+    }
+}
+
+
+// ===== READ-OPTIMIZED ACCOUNT (StampedLock optimistic reads) =====
+// A consistent view of several account fields at one point in time
+class AccountStatement {
+    final long balanceCents;
+    final long depositCount;
+    final long withdrawalCount;
+    
+    AccountStatement(long balanceCents, long depositCount, long withdrawalCount) {
+        this.balanceCents = balanceCents;
+        this.depositCount = depositCount;
+        this.withdrawalCount = withdrawalCount;
+    }
+    
+    @Override
+    public String toString() {
+        return "Balance: " + balanceCents + " cents, deposits: " + depositCount + ", withdrawals: " + withdrawalCount;
+    }
+}
+
+// Readers take no lock at all in the common case: they read the fields, then validate
+// that no writer ran in between. Only writers take exclusive access.
+class StampedBankAccount {
+    private final StampedLock lock = new StampedLock();
+    private long balanceCents;
+    private long depositCount;
+    private long withdrawalCount;
+    
+    public StampedBankAccount(long initialBalanceCents) {
+        if (initialBalanceCents < 0) {
+            throw new IllegalArgumentException("Opening balance cannot be negative: " + initialBalanceCents);
+        }
+        this.balanceCents = initialBalanceCents;
+    }
+    
+    public long getBalance() {
+        long stamp = lock.tryOptimisticRead();
+        long balance = balanceCents;
+        if (!lock.validate(stamp)) {
+            // A writer got in - fall back to a real read lock
+            stamp = lock.readLock();
+            try {
+                balance = balanceCents;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return balance;
+    }
+    
+    public AccountStatement getStatement() {
+        // Retry optimistically a few times before blocking, so short write bursts don't stall readers
+        for (int attempt = 0; attempt < 3; attempt++) {
+            long stamp = lock.tryOptimisticRead();
+            long balance = balanceCents;
+            long deposits = depositCount;
+            long withdrawals = withdrawalCount;
+            if (lock.validate(stamp)) {
+                return new AccountStatement(balance, deposits, withdrawals);
+            }
+        }
+        long stamp = lock.readLock();
+        try {
+            return new AccountStatement(balanceCents, depositCount, withdrawalCount);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+    
+    public boolean deposit(long amountCents) {
+        if (amountCents <= 0) {
+            return false;
+        }
+        long stamp = lock.writeLock();
+        try {
+            balanceCents = Math.addExact(balanceCents, amountCents);
+            depositCount++;
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+    
+    public boolean withdraw(long amountCents) {
+        long stamp = lock.writeLock();
+        try {
+            if (amountCents <= 0 || amountCents > balanceCents) {
+                return false;
+            }
+            balanceCents -= amountCents;
+            withdrawalCount++;
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+}
+
+// Baseline for the benchmark: same API, every read and write takes the monitor
+class SynchronizedStatementAccount {
+    private long balanceCents;
+    private long depositCount;
+    private long withdrawalCount;
+    
+    public SynchronizedStatementAccount(long initialBalanceCents) {
+        if (initialBalanceCents < 0) {
+            throw new IllegalArgumentException("Opening balance cannot be negative: " + initialBalanceCents);
+        }
+        this.balanceCents = initialBalanceCents;
+    }
+    
+    public synchronized long getBalance() {
+        return balanceCents;
+    }
+    
+    public synchronized AccountStatement getStatement() {
+        return new AccountStatement(balanceCents, depositCount, withdrawalCount);
+    }
+    
+    public synchronized boolean deposit(long amountCents) {
+        if (amountCents <= 0) {
+            return false;
+        }
+        balanceCents = Math.addExact(balanceCents, amountCents);
+        depositCount++;
+        return true;
+    }
+    
+    public synchronized boolean withdraw(long amountCents) {
+        if (amountCents <= 0 || amountCents > balanceCents) {
+            return false;
+        }
+        balanceCents -= amountCents;
+        withdrawalCount++;
+        return true;
+    }
+}
+
+class ReadWriteRatioBenchmark {
+    private static final long RUN_MILLIS = 300;
+    // Every read result is added here, so the JIT cannot drop the reads being measured
+    private static final LongAdder READ_SINK = new LongAdder();
+    
+    public static void runBenchmark() {
+        System.out.println("\n=== READ/WRITE RATIO BENCHMARK (ops/sec, " + RUN_MILLIS + "ms per run) ===");
+        int cores = Runtime.getRuntime().availableProcessors();
+        int[] readPercents = {50, 95, 99};
+        System.out.printf("%-10s %-8s %-8s %18s %18s%n", "Read", "Threads", "Reads", "synchronized", "stamped");
+        
+        for (String readKind : new String[] {"balance", "statement"}) {
+            boolean statement = readKind.equals("statement");
+            for (int readPercent : readPercents) {
+                int threads = 1;
+                while (true) {
+                    SynchronizedStatementAccount syncAccount = new SynchronizedStatementAccount(1_000_000);
+                    StampedBankAccount stampedAccount = new StampedBankAccount(1_000_000);
+                    
+                    LongSupplier syncRead = statement ? () -> checksum(syncAccount.getStatement())
+                                                      : syncAccount::getBalance;
+                    LongSupplier stampedRead = statement ? () -> checksum(stampedAccount.getStatement())
+                                                         : stampedAccount::getBalance;
+                    long syncOps = measure(threads, readPercent, syncRead, () -> syncAccount.deposit(1));
+                    long stampedOps = measure(threads, readPercent, stampedRead, () -> stampedAccount.deposit(1));
+                    System.out.printf("%-10s %-8d %-8s %18d %18d%n", readKind, threads, readPercent + "%",
+                                      syncOps * 1000 / RUN_MILLIS, stampedOps * 1000 / RUN_MILLIS);
+                    
+                    if (threads == cores) {
+                        break;
+                    }
+                    threads = Math.min(threads * 2, cores);
+                }
+            }
+        }
+        System.out.println("Read checksum: " + READ_SINK.sum());
+    }
+    
+    // Uses every field, so a statement read cannot be reduced to a single load
+    private static long checksum(AccountStatement statement) {
+        return statement.balanceCents + statement.depositCount + statement.withdrawalCount;
+    }
+    
+    private static long measure(int threads, int readPercent, LongSupplier read, Runnable write) {
+        AtomicBoolean running = new AtomicBoolean(true);
+        LongAdder completed = new LongAdder();
+        Thread[] workers = new Thread[threads];
+        
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Thread(() -> {
+                long sink = 0;
+                int counter = 0;
+                while (running.get()) {
+                    // Deterministic mix: readPercent reads out of every 100 operations
+                    if (counter++ % 100 < readPercent) {
+                        sink += read.getAsLong();
+                    } else {
+                        write.run();
+                    }
+                    completed.increment();
+                }
+                READ_SINK.add(sink);
+            });
+            workers[i].start();
+        }
+        
+        try {
+            Thread.sleep(RUN_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        running.set(false);
+        
+        for (Thread worker : workers) {
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return completed.sum();
+    }
+}
+
+// ===== DURABLE ACCOUNT JOURNAL (write-ahead log + group commit + snapshots) =====
+// Every deposit/withdraw is appended to a log and the caller returns only once it is on disk.
+// Callers that arrive while a flush is in progress are batched into the next fsync (group commit),
+// so one force() covers many operations. Periodic snapshots let recovery replay only the log tail.
+class AccountJournal implements AutoCloseable {
+    private static final int RECORD_SIZE = 25; // seq(8) + type(1) + account(8) + amount(8)
+    private static final byte DEPOSIT = 1;
+    private static final byte WITHDRAW = 2;
+    
+    private final Object lock = new Object();
+    private final Map<Long, Long> balances = new HashMap<>(); // Durable state only; guarded by lock
+    private Map<Long, Long> projected = new HashMap<>();      // Durable state plus in-flight records, for validation
+    private final Path snapshotFile;
+    private final FileChannel log;
+    private final int maxBatchSize;
+    private final long maxDelayNanos;
+    private final int snapshotEvery;
+    private final int recoveredRecords;
+    private final Thread flusher;
+    
+    private ByteBuffer pending;    // Records waiting for the next flush
+    private ByteBuffer spare;      // Null while the flusher is writing it
+    private long lastSeq;          // Last sequence number handed out
+    private long durableSeq;       // Everything up to here is on disk
+    private long opsSinceSnapshot;
+    private boolean closed;
+    private IOException failure;
+    
+    // Statistics
+    private long flushes;
+    private long committedOps;
+    private long totalCommitNanos;
+    
+    // maxBatchSize: most operations per fsync (at least 1); maxDelayMicros: how long a flush waits for
+    // more callers (0 for no wait); snapshotEvery: operations between snapshots (at least 1)
+    public AccountJournal(Path directory, int maxBatchSize, long maxDelayMicros, int snapshotEvery)
+            throws IOException {
+        if (maxBatchSize < 1 || snapshotEvery < 1 || maxDelayMicros < 0) {
+            throw new IllegalArgumentException("Need maxBatchSize >= 1, snapshotEvery >= 1 and maxDelayMicros >= 0");
+        }
+        int batchBytes;
+        try {
+            batchBytes = Math.multiplyExact(maxBatchSize, RECORD_SIZE);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("maxBatchSize too large: " + maxBatchSize);
+        }
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayNanos = TimeUnit.MICROSECONDS.toNanos(maxDelayMicros);
+        this.snapshotEvery = snapshotEvery;
+        this.snapshotFile = directory.resolve("balances.snapshot");
+        this.pending = ByteBuffer.allocateDirect(batchBytes);
+        this.spare = ByteBuffer.allocateDirect(batchBytes);
+        
+        Files.createDirectories(directory);
+        this.log = FileChannel.open(directory.resolve("journal.log"), StandardOpenOption.CREATE,
+                                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            this.recoveredRecords = recover();
+        } catch (IOException | RuntimeException e) {
+            log.close();
+            throw e;
+        }
+        this.durableSeq = lastSeq;
+        
+        this.flusher = new Thread(this::flushLoop, "Journal-Flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+    
+    public boolean deposit(long account, long amountCents) throws IOException {
+        return append(DEPOSIT, account, amountCents);
+    }
+    
+    public boolean withdraw(long account, long amountCents) throws IOException {
+        return append(WITHDRAW, account, amountCents);
+    }
+    
+    // Reflects only operations whose records are on disk
+    public long getBalance(long account) {
+        synchronized (lock) {
+            return balances.getOrDefault(account, 0L);
+        }
+    }
+    
+    private boolean append(byte type, long account, long amountCents) throws IOException {
+        if (amountCents <= 0) {
+            return false;
+        }
+        synchronized (lock) {
+            try {
+                // Back-pressure: wait for the flusher if the current batch is full
+                while (!closed && failure == null && pending.remaining() < RECORD_SIZE) {
+                    lock.wait();
+                }
+                checkUsable();
+                
+                // Validated against in-flight records too, so two pending withdrawals cannot both overdraw;
+                // the durable balance only changes once the record is on disk
+                long balance = projected.getOrDefault(account, 0L);
+                if (type == WITHDRAW) {
+                    if (amountCents > balance) {
+                        return false; // Rejected operations are never logged
+                    }
+                    balance -= amountCents;
+                } else {
+                    balance = Math.addExact(balance, amountCents);
+                }
+                projected.put(account, balance);
+                
+                long seq = ++lastSeq;
+                pending.putLong(seq).put(type).putLong(account).putLong(amountCents);
+                opsSinceSnapshot++;
+                lock.notifyAll(); // Wake the flusher
+                
+                // Closing does not fail us: the flusher drains every accepted record before it exits
+                long start = System.nanoTime();
+                while (durableSeq < seq) {
+                    if (failure != null) {
+                        throw new IOException("Journal failed before this operation was durable", failure);
+                    }
+                    lock.wait();
+                }
+                committedOps++;
+                totalCommitNanos += System.nanoTime() - start;
+                return true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for commit");
+            }
+        }
+    }
+    
+    private void checkUsable() throws IOException {
+        if (failure != null) {
+            throw new IOException("Journal failed", failure);
+        }
+        if (closed) {
+            throw new IOException("Journal is closed");
+        }
+    }
+    
+    private void flushLoop() {
+        while (true) {
+            ByteBuffer batch;
+            long batchSeq;
+            Map<Long, Long> snapshot = null;
+            
+            synchronized (lock) {
+                try {
+                    while (!closed && pending.position() == 0) {
+                        lock.wait();
+                    }
+                    if (pending.position() == 0) {
+                        return; // Closed and fully drained
+                    }
+                    // Group commit window: give other callers a chance to join this fsync
+                    long deadline = System.nanoTime() + maxDelayNanos;
+                    long remaining;
+                    while (!closed && pending.hasRemaining()
+                           && (remaining = deadline - System.nanoTime()) > 0) {
+                        TimeUnit.NANOSECONDS.timedWait(lock, remaining);
+                    }
+                } catch (InterruptedException e) {
+                    // Nothing will flush from here on: fail every waiting and future caller
+                    failure = new InterruptedIOException("Journal flusher interrupted");
+                    projected = new HashMap<>(balances);
+                    lock.notifyAll();
+                    return;
+                }
+                batch = pending;
+                pending = spare;
+                spare = null;
+                batchSeq = lastSeq;
+                if (opsSinceSnapshot >= snapshotEvery) {
+                    snapshot = new HashMap<>(projected); // Consistent with batchSeq
+                    opsSinceSnapshot = 0;
+                }
+                lock.notifyAll(); // Callers blocked on a full batch can continue
+            }
+            
+            long logStart = -1;
+            try {
+                logStart = log.position();
+                batch.flip();
+                while (batch.hasRemaining()) {
+                    log.write(batch);
+                }
+                log.force(false);
+                if (snapshot != null) {
+                    // Every logged record is now covered by the snapshot, so the log can start over
+                    writeSnapshot(snapshot, batchSeq);
+                    log.truncate(0);
+                }
+            } catch (IOException e) {
+                if (logStart >= 0) {
+                    try {
+                        log.truncate(logStart); // Best effort: keep the failed batch from being replayed
+                    } catch (IOException ignored) {
+                        // The original failure is what callers need to see
+                    }
+                }
+                synchronized (lock) {
+                    failure = e;
+                    projected = new HashMap<>(balances); // Undo everything that never became durable
+                    lock.notifyAll();
+                }
+                return;
+            }
+            
+            synchronized (lock) {
+                // Only now do the batch's operations reach the visible balances
+                batch.flip();
+                while (batch.hasRemaining()) {
+                    batch.getLong();
+                    byte type = batch.get();
+                    long account = batch.getLong();
+                    long amount = batch.getLong();
+                    balances.merge(account, type == DEPOSIT ? amount : -amount, Long::sum);
+                }
+                batch.clear();
+                spare = batch;
+                durableSeq = batchSeq;
+                flushes++;
+                lock.notifyAll();
+            }
+        }
+    }
+    
+    private void writeSnapshot(Map<Long, Long> snapshot, long seq) throws IOException {
+        Path temp = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp");
+        ByteBuffer data = ByteBuffer.allocate(16 + snapshot.size() * 16);
+        data.putLong(seq).putLong(snapshot.size());
+        for (Map.Entry<Long, Long> entry : snapshot.entrySet()) {
+            data.putLong(entry.getKey()).putLong(entry.getValue());
+        }
+        data.flip();
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE,
+                                                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (data.hasRemaining()) {
+                out.write(data);
+            }
+            out.force(true);
+        }
+        Files.move(temp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    // Load the latest snapshot, then replay only log records newer than it; returns the replay count
+    private int recover() throws IOException {
+        long snapshotSeq = 0;
+        if (Files.exists(snapshotFile)) {
+            ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(snapshotFile));
+            snapshotSeq = data.getLong();
+            long count = data.getLong();
+            for (long i = 0; i < count; i++) {
+                balances.put(data.getLong(), data.getLong());
+            }
+        }
+        lastSeq = snapshotSeq;
+        
+        long size = log.size();
+        long complete = size - size % RECORD_SIZE; // A torn final record from a crash is dropped
+        ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+        int replayed = 0;
+        for (long position = 0; position < complete; position += RECORD_SIZE) {
+            record.clear();
+            while (record.hasRemaining()) {
+                log.read(record, position + record.position());
+            }
+            record.flip();
+            long seq = record.getLong();
+            byte type = record.get();
+            long account = record.getLong();
+            long amount = record.getLong();
+            if (seq <= snapshotSeq) {
+                continue;
+            }
+            balances.merge(account, type == DEPOSIT ? amount : -amount, Long::sum);
+            lastSeq = seq;
+            replayed++;
+        }
+        log.truncate(complete);
+        log.position(complete);
+        projected.putAll(balances);
+        return replayed;
+    }
+    
+    // Log records replayed on top of the snapshot when this journal was opened
+    public int recoveredRecords() {
+        return recoveredRecords;
+    }
+    
+    public String stats() {
+        synchronized (lock) {
+            return String.format("%d ops in %d fsyncs (avg batch %.1f), avg commit latency %.1f us",
+                                 committedOps, flushes, flushes == 0 ? 0.0 : (double) committedOps / flushes,
+                                 committedOps == 0 ? 0.0 : totalCommitNanos / 1000.0 / committedOps);
+        }
+    }
+    
+    // Stops new appends; operations already accepted are still flushed and their callers told the outcome
+    @Override
+    public void close() throws IOException {
+        synchronized (lock) {
+            closed = true;
+            lock.notifyAll();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.close();
+    }
+    
+    // Measures durable throughput and commit latency for several batch sizes
+    public static void runBenchmark() {
+        System.out.println("\n=== JOURNAL GROUP COMMIT BENCHMARK ===");
+        int threads = 32;
+        long runMillis = 500;
+        int[] batchSizes = {1, 16, 128, 1024};
+        
+        for (int batchSize : batchSizes) {
+            try {
+                Path directory = Files.createTempDirectory("journal");
+                long ops;
+                String stats;
+                try (AccountJournal journal = new AccountJournal(directory, batchSize, 200, 50_000)) {
+                    AtomicBoolean running = new AtomicBoolean(true);
+                    Thread[] workers = new Thread[threads];
+                    for (int i = 0; i < threads; i++) {
+                        final long account = i;
+                        workers[i] = new Thread(() -> {
+                            try {
+                                while (running.get()) {
+                                    journal.deposit(account, 100);
+                                }
+                            } catch (IOException e) {
+                                e.printStackTrace();
+                            }
+                        });
+                        workers[i].start();
+                    }
+                    Thread.sleep(runMillis);
+                    running.set(false);
+                    for (Thread worker : workers) {
+                        worker.join();
+                    }
+                    synchronized (journal.lock) {
+                        ops = journal.committedOps;
+                    }
+                    stats = journal.stats();
+                }
+                System.out.printf("batch<=%-5d %8d durable ops/sec  %s%n", batchSize, ops * 1000 / runMillis, stats);
+                
+                try (java.util.stream.Stream<Path> files = Files.list(directory)) {
+                    for (Path file : (Iterable<Path>) files::iterator) {
+                        Files.delete(file);
+                    }
+                }
+                Files.delete(directory);
+            } catch (IOException e) {
+                e.printStackTrace();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+}
+
 // ===== THREAD POOL EXAMPLE =====
 class ThreadPoolDemo {
     public static void demonstrateThreadPool() {
@@ -216,6 +1150,216 @@ class ThreadPoolDemo {
     }
 }
 
+// ===== SHARDED SINGLE-WRITER ACCOUNT PROCESSING =====
+// Accounts are partitioned by number onto shards. Each shard's accounts are touched by exactly
+// one thread, so no locks are needed on them; callers send commands and get a future back.
+class ShardedAccountProcessor {
+    private static final int DEPOSIT = 0;
+    private static final int WITHDRAW = 1;
+    private static final int BALANCE = 2;
+    private static final int MAX_BATCH = 256;
+    
+    private static class Command {
+        final int type;
+        final long accountNumber;
+        final long amountCents;
+        final CompletableFuture<Long> result;
+        
+        Command(int type, long accountNumber, long amountCents, CompletableFuture<Long> result) {
+            this.type = type;
+            this.accountNumber = accountNumber;
+            this.amountCents = amountCents;
+            this.result = result;
+        }
+    }
+    
+    private static final Command STOP = new Command(-1, 0, 0, null);
+    
+    private final List<BlockingQueue<Command>> queues;
+    private final ExecutorService executor;
+    private volatile boolean closed;
+    
+    public ShardedAccountProcessor(int shards, int queueCapacity) {
+        this.queues = new ArrayList<>(shards);
+        this.executor = Executors.newFixedThreadPool(shards);
+        for (int i = 0; i < shards; i++) {
+            BlockingQueue<Command> queue = new ArrayBlockingQueue<>(queueCapacity);
+            queues.add(queue);
+            executor.submit(() -> drain(queue));
+        }
+    }
+    
+    // Deposits create the account on first use; completes with the new balance
+    public CompletableFuture<Long> deposit(long accountNumber, long amountCents) {
+        return submit(DEPOSIT, accountNumber, amountCents);
+    }
+    
+    // Completes exceptionally if the account does not exist or lacks funds
+    public CompletableFuture<Long> withdraw(long accountNumber, long amountCents) {
+        return submit(WITHDRAW, accountNumber, amountCents);
+    }
+    
+    public CompletableFuture<Long> balance(long accountNumber) {
+        return submit(BALANCE, accountNumber, 0);
+    }
+    
+    private CompletableFuture<Long> submit(int type, long accountNumber, long amountCents) {
+        CompletableFuture<Long> result = new CompletableFuture<>();
+        Command command = new Command(type, accountNumber, amountCents, result);
+        BlockingQueue<Command> queue = queues.get(shardOf(accountNumber));
+        try {
+            // Bounded queue: a full shard applies back-pressure to its callers, until shutdown
+            while (!queue.offer(command, 10, TimeUnit.MILLISECONDS)) {
+                if (closed) {
+                    result.completeExceptionally(new RejectedExecutionException("Processor is shut down"));
+                    return result;
+                }
+            }
+            // Queued after shutdown began: if the shard has not taken it, it never will
+            if (closed && queue.remove(command)) {
+                result.completeExceptionally(new RejectedExecutionException("Processor is shut down"));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+    
+    private int shardOf(long accountNumber) {
+        long h = accountNumber * 0x9E3779B97F4A7C15L;
+        return (int) ((h >>> 32) % queues.size());
+    }
+    
+    // Runs on the shard's own thread - the only thread that ever touches these balances
+    private void drain(BlockingQueue<Command> queue) {
+        Map<Long, Long> balances = new HashMap<>();
+        List<Command> batch = new ArrayList<>(MAX_BATCH);
+        try {
+            while (true) {
+                batch.add(queue.take());
+                queue.drainTo(batch, MAX_BATCH - 1);
+                for (int i = 0; i < batch.size(); i++) {
+                    Command command = batch.get(i);
+                    if (command == STOP) {
+                        batch.subList(0, i + 1).clear();
+                        return;
+                    }
+                    try {
+                        execute(command, balances);
+                    } catch (RuntimeException e) {
+                        command.result.completeExceptionally(e); // One bad command must not stop the shard
+                    }
+                }
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            // Nothing left behind may wait forever
+            RejectedExecutionException stopped = new RejectedExecutionException("Shard stopped");
+            for (Command command : batch) {
+                if (command != STOP) {
+                    command.result.completeExceptionally(stopped);
+                }
+            }
+            for (Command command; (command = queue.poll()) != null; ) {
+                if (command != STOP) {
+                    command.result.completeExceptionally(stopped);
+                }
+            }
+        }
+    }
+    
+    private static void execute(Command command, Map<Long, Long> balances) {
+        Long current = balances.get(command.accountNumber);
+        switch (command.type) {
+            case DEPOSIT:
+                if (command.amountCents <= 0) {
+                    command.result.completeExceptionally(new IllegalArgumentException("Invalid deposit amount"));
+                    return;
+                }
+                long updated = Math.addExact(current == null ? 0 : current, command.amountCents);
+                balances.put(command.accountNumber, updated);
+                command.result.complete(updated);
+                return;
+            case WITHDRAW:
+                if (current == null) {
+                    command.result.completeExceptionally(new IllegalArgumentException("Unknown account: " + command.accountNumber));
+                } else if (command.amountCents <= 0 || command.amountCents > current) {
+                    command.result.completeExceptionally(new IllegalStateException("Insufficient funds or invalid amount"));
+                } else {
+                    balances.put(command.accountNumber, current - command.amountCents);
+                    command.result.complete(current - command.amountCents);
+                }
+                return;
+            default:
+                command.result.complete(current == null ? 0L : current);
+        }
+    }
+    
+    // Commands already queued are processed before the shards stop; later submissions are rejected
+    public void shutdown() {
+        closed = true;
+        for (BlockingQueue<Command> queue : queues) {
+            try {
+                queue.put(STOP);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        executor.shutdown();
+        try {
+            while (!executor.awaitTermination(1, TimeUnit.SECONDS)) {
+                // Shards exit only after reaching STOP, so waiting here means queued work remains
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    // Throughput for increasing shard counts with a fixed set of producer threads
+    public static void runBenchmark() {
+        System.out.println("\n=== SHARDED PROCESSOR BENCHMARK ===");
+        int cores = Runtime.getRuntime().availableProcessors();
+        int producers = Math.max(2, cores);
+        int commandsPerProducer = 200_000;
+        
+        int shards = 1;
+        while (true) {
+            ShardedAccountProcessor processor = new ShardedAccountProcessor(shards, 8192);
+            Thread[] workers = new Thread[producers];
+            long start = System.nanoTime();
+            for (int p = 0; p < producers; p++) {
+                final int seed = p;
+                workers[p] = new Thread(() -> {
+                    for (int i = 0; i < commandsPerProducer; i++) {
+                        // A handful of hot accounts plus a long tail
+                        long account = (i % 10 == 0) ? 1 : (seed * 1_000_003L + i) % 100_000;
+                        processor.deposit(account, 1);
+                    }
+                });
+                workers[p].start();
+            }
+            for (Thread worker : workers) {
+                try {
+                    worker.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            processor.shutdown(); // Returns once every shard has drained its queue
+            double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+            System.out.printf("%d shard(s): %.0f commands/sec%n", shards, producers * commandsPerProducer / seconds);
+            
+            if (shards == cores) {
+                break;
+            }
+            shards = Math.min(shards * 2, cores);
+        }
+    }
+}
+
 // ===== DAEMON THREAD EXAMPLE =====
 class DaemonThreadDemo {
     public static void demonstrateDaemonThread() {
@@ -387,11 +1531,79 @@ public class Group9_MultithreadingThreadStates {
             }
         }
         
+        AccountEventSink.shared().flush(); // Print pending account events before the summary line
         System.out.println("Final Balance: $" + account.getBalance());
         
+        // Lock-free alternative: no monitor, overdraft rejected without blocking
+        System.out.println("\n--- Lock-free account (CAS) ---");
+        LockFreeBankAccount lockFree = new LockFreeBankAccount(100_000); // $1000.00 in cents
+        Thread[] casThreads = new Thread[5];
+        for (int i = 0; i < 5; i++) {
+            casThreads[i] = new Thread(() -> lockFree.withdraw(20_000));
+            casThreads[i].start();
+        }
+        for (Thread t : casThreads) {
+            try {
+                t.join();
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            }
+        }
+        LockFreeBankAccount savings = new LockFreeBankAccount(0);
+        System.out.println("Transfer of $50.00 to savings with empty balance: " + lockFree.transfer(savings, 5_000));
+        System.out.println("Lock-free Final Balance (cents): " + lockFree.getBalanceCents());
+        
+        ContentionBenchmark.runBenchmark();
+        
+        // Read-heavy workloads: optimistic stamped reads never block behind other readers
+        System.out.println("\n--- Read-optimized account (StampedLock) ---");
+        StampedBankAccount stamped = new StampedBankAccount(100_000);
+        stamped.deposit(25_000);
+        stamped.withdraw(5_000);
+        System.out.println("Balance (cents): " + stamped.getBalance());
+        System.out.println("Statement: " + stamped.getStatement());
+        ReadWriteRatioBenchmark.runBenchmark();
+        
+        // Durability: write-ahead journal with group commit, then recovery from snapshot + log tail
+        System.out.println("\n--- Durable account journal ---");
+        try {
+            Path journalDir = Files.createTempDirectory("journal-demo");
+            try (AccountJournal journal = new AccountJournal(journalDir, 256, 500, 3)) {
+                journal.deposit(1, 100_000);
+                journal.withdraw(1, 25_000);
+                journal.deposit(2, 5_000); // Third operation: its flush also writes a snapshot
+                journal.deposit(2, 1_000);
+                journal.withdraw(1, 10_000);
+                System.out.println("Insufficient-funds withdrawal accepted: " + journal.withdraw(2, 1_000_000));
+            }
+            try (AccountJournal reopened = new AccountJournal(journalDir, 256, 500, 3)) {
+                System.out.println("Reopened journal: replayed " + reopened.recoveredRecords() + " log record(s) after the snapshot");
+                System.out.println("Recovered balances (cents): account 1 = " + reopened.getBalance(1)
+                                   + ", account 2 = " + reopened.getBalance(2));
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        AccountJournal.runBenchmark();
+        
         // Thread pool demonstration
         ThreadPoolDemo.demonstrateThreadPool();
         
+        // Sharded single-writer processing: one thread per shard owns its accounts
+        System.out.println("\n--- Sharded account processor ---");
+        ShardedAccountProcessor processor = new ShardedAccountProcessor(4, 1024);
+        processor.deposit(1001, 50_000);
+        processor.withdraw(1001, 20_000);
+        processor.withdraw(1001, 100_000)
+                 .exceptionally(error -> {
+                     System.out.println("Withdrawal rejected: " + error.getMessage());
+                     return -1L;
+                 })
+                 .join();
+        System.out.println("Balance of 1001 (cents): " + processor.balance(1001).join());
+        processor.shutdown();
+        ShardedAccountProcessor.runBenchmark();
+        
         // Daemon thread demonstration
         DaemonThreadDemo.demonstrateDaemonThread();
         